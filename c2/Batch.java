@@ -0,0 +1,186 @@
+/*
+  File Name: Batch.java
+  To Run:
+    java -classpath /usr/share/java/cup.jar:. Main -b [-j threads] [-o dir] [-a] [-s] [-p] [-e N] [-l] [-r] [-P] [-t] [-T stats.json] <files...>
+
+  Compiles many C- files in one JVM, so startup and JIT warm up are paid once
+  instead of once per file. Files are compiled at the same time on a pool of
+  threads (-j, one per core by default). Each file can be given as:
+    - a .cm file
+    - a directory, every .cm file under it is compiled
+    - a glob such as tests/*.cm or 'src/**.cm' (quote it so the shell leaves it alone)
+    - @list, a text file naming one of the above per line
+  .abs and .sym files go next to each source file, or into the -o directory;
+  two files that would write the same ones (a/x.cm and b/x.cm with -o) are refused.
+  Each file's errors are printed together under its name, in the order the
+  files were given, followed by a timing table. With -t each file's phase
+  table is printed with its errors, with -T every file's goes into one JSON file.
+*/
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+public class Batch {
+
+  public static void main(String argv[]) {
+    Main.Options options = new Main.Options();
+    options.outputDir = null;
+    int threads = Runtime.getRuntime().availableProcessors();
+    List<String> files = new ArrayList<String>();
+
+    try {
+      for (int i = 1; i < argv.length; i++) {
+        if (argv[i].equals("-j") && i + 1 < argv.length) {
+          threads = Math.max(1, Integer.parseInt(argv[++i]));
+        } else if (argv[i].equals("-o") && i + 1 < argv.length) {
+          options.outputDir = argv[++i];
+        } else if (argv[i].startsWith("-")) {
+          i = Main.option(argv, i, options);
+        } else {
+          expand(argv[i], files);
+        }
+      }
+    } catch (IOException e) {
+      System.err.println("Can't read the list of files: " + e.getMessage());
+      System.exit(1);
+    }
+    if (files.isEmpty()) {
+      System.err.println("No .cm files to compile");
+      System.exit(1);
+    }
+    if (options.outputDir != null) {
+      try {
+        Files.createDirectories(Paths.get(options.outputDir));
+      } catch (IOException e) {
+        System.err.println("Can't make the output directory " + options.outputDir + ": " + e);
+        System.exit(1);
+      }
+    }
+
+    // Two files writing the same .abs and .sym would overwrite each other, which one is left
+    // depending on which thread finished last (a/x.cm and b/x.cm with -o, or a file given twice)
+    if (options.printAST || options.printTable) {
+      Map<String, String> outputs = new HashMap<String, String>();
+      for (String file : files) {
+        String other = outputs.putIfAbsent(Main.outputName(file, options), file);
+        if (other != null) {
+          System.err.println(other + " and " + file + " would both write " + Main.outputName(file, options) + ".abs and .sym, compile them apart or rename one");
+          System.exit(1);
+        }
+      }
+    }
+
+    long start = System.nanoTime();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    List<Future<Main.Result>> running = new ArrayList<Future<Main.Result>>();
+    List<ByteArrayOutputStream> messages = new ArrayList<ByteArrayOutputStream>();
+    for (String file : files) {
+      ByteArrayOutputStream fileMessages = new ByteArrayOutputStream();
+      messages.add(fileMessages);
+      running.add(pool.submit(() -> {
+        try (PrintStream err = new PrintStream(fileMessages)) {
+          return Main.compile(file, options, err);
+        }
+      }));
+    }
+
+    // Results in the order the files were given, as soon as each one is done
+    List<Main.Result> results = new ArrayList<Main.Result>();
+    for (int i = 0; i < files.size(); i++) {
+      Main.Result result;
+      try {
+        result = running.get(i).get();
+      } catch (Exception e) {
+        result = new Main.Result();
+        result.file = files.get(i);
+        result.failed = true;
+        e.printStackTrace(new PrintStream(messages.get(i), true));
+      }
+      results.add(result);
+      if (messages.get(i).size() > 0) {
+        System.err.println(files.get(i) + ":");
+        System.err.print(messages.get(i));
+        System.err.flush();
+      }
+      messages.set(i, null);
+    }
+    pool.shutdown();
+    long wall = System.nanoTime() - start;
+
+    summary(results, wall, threads);
+    if (options.statsFile != null) {
+      Main.writeStats(options.statsFile, results);
+    }
+    for (Main.Result result : results) {
+      if (result.failed) {
+        System.exit(1);
+      }
+    }
+  }
+
+  // Adds the .cm files an argument names, see the top of the file
+  static void expand(String arg, List<String> files) throws IOException {
+    if (arg.startsWith("@")) {
+      for (String line : Files.readAllLines(Paths.get(arg.substring(1)))) {
+        if (!line.trim().isEmpty()) {
+          expand(line.trim(), files);
+        }
+      }
+    } else if (arg.contains("*") || arg.contains("?") || arg.contains("[") || arg.contains("{")) {
+      // Walk from the part of the path before the first wildcard and keep what the glob matches
+      int wildcard = arg.length();
+      for (char c : "*?[{".toCharArray()) {
+        if (arg.indexOf(c) >= 0) {
+          wildcard = Math.min(wildcard, arg.indexOf(c));
+        }
+      }
+      int slash = arg.lastIndexOf('/', wildcard);
+      Path base = Paths.get(slash < 0 ? "" : arg.substring(0, slash + 1));
+      PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + arg);
+      try (Stream<Path> walk = Files.walk(base.toString().isEmpty() ? Paths.get(".") : base)) {
+        walk.filter(Files::isRegularFile)
+            .map(path -> base.toString().isEmpty() ? Paths.get(".").relativize(path) : path)
+            .filter(matcher::matches)
+            .map(Path::toString)
+            .sorted()
+            .forEach(files::add);
+      }
+    } else if (Files.isDirectory(Paths.get(arg))) {
+      try (Stream<Path> walk = Files.walk(Paths.get(arg))) {
+        walk.filter(path -> Files.isRegularFile(path) && path.toString().endsWith(".cm"))
+            .map(Path::toString)
+            .sorted()
+            .forEach(files::add);
+      }
+    } else {
+      files.add(arg);
+    }
+  }
+
+  // One line per file, then the totals. CPU is the sum of the files' own times, wall is the whole batch
+  static void summary(List<Main.Result> results, long wall, int threads) {
+    int width = 4;
+    for (Main.Result result : results) {
+      width = Math.max(width, result.file.length());
+    }
+
+    long parse = 0, check = 0;
+    int errors = 0, failed = 0;
+    System.out.printf("%-" + width + "s %10s %10s %10s %7s%n", "file", "parse ms", "check ms", "total ms", "errors");
+    for (Main.Result result : results) {
+      System.out.printf("%-" + width + "s %10.2f %10.2f %10.2f %7s%n", result.file, result.parseTime / 1e6,
+                        result.checkTime / 1e6, (result.parseTime + result.checkTime) / 1e6,
+                        result.failed ? "failed" : String.valueOf(result.errors));
+      parse += result.parseTime;
+      check += result.checkTime;
+      errors += result.errors;
+      failed += result.failed ? 1 : 0;
+    }
+    System.out.printf("%-" + width + "s %10.2f %10.2f %10.2f %7d%n", "total", parse / 1e6, check / 1e6, (parse + check) / 1e6, errors);
+    System.out.printf("%d files (%d failed) on %d threads in %.1f ms wall, %.1f files/s%n",
+                      results.size(), failed, threads, wall / 1e6, results.size() / (wall / 1e9));
+  }
+}
@@ -0,0 +1,199 @@
+import java.io.PrintStream;
+import java.io.Reader;
+import absyn.*;
+
+/* Everything one compile of one file owns: the name table, the diagnostics, where each kind of
+   output goes and the tree the parser built. The lexer, parser, SemanticAnalyzer and
+   ShowTreeVisitor all take their state from here and nothing in them is static, so any number
+   of compilations can run at the same time on different threads without sharing anything. */
+public class Compilation {
+    public final NameTable names = new NameTable();
+    public final Diagnostics diagnostics = new Diagnostics();
+
+    public PrintStream treeOut = System.out;  // The abstract syntax tree (-a)
+    public PrintStream tableOut = System.out; // The symbol table listing (-s)
+    public PrintStream err = System.err;      // Where flush() prints the diagnostics
+
+    public DecList program = null; // The whole program once parsed, null if there was nothing to build
+    public Source source = null;   // The text it was parsed from
+
+    public Stats stats = null; // Time and allocation per phase, only kept when set (-t)
+    public boolean directLexer = false; // Lex with DirectLexer instead of the JFlex Lexer (-l)
+    public boolean descentParser = false; // Parse with DescentParser, falling back to CUP on a syntax error (-r)
+    public int parseThreads = 0; // Parse a large file in pieces on this many threads (-P), 0 parses it in one go
+
+    public Compilation() {
+    }
+
+    public Compilation(PrintStream err) {
+        this.err = err;
+    }
+
+    // Lexes and parses the input into program
+    public DecList parse(Reader in) throws Exception {
+        return parse(Source.read(in));
+    }
+
+    // The same for a file opened with Source.open, which DirectLexer reads in place. The source is
+    // kept so positions (offsets into it) can be turned into lines and columns
+    public DecList parse(Source source) throws Exception {
+        this.source = source;
+        diagnostics.setSource(source);
+        if (parseThreads > 0) {
+            return parseParallel(source);
+        }
+        if (descentParser) {
+            return parseDescent(new DirectLexer(source, this));
+        }
+        return parse(directLexer ? new parser(new DirectLexer(source, this), this) : new parser(new Lexer(source.reader(), this)));
+    }
+
+    private DecList parse(parser p) throws Exception {
+        CompilerEvents.Phase event = phaseBegin();
+        if (stats != null) {
+            p.setScanner(stats.lexing(p.getScanner()));
+            stats.begin(Stats.PARSE);
+        }
+        try {
+            program = (DecList) p.parse().value;
+        } finally {
+            if (stats != null) {
+                stats.end(Stats.PARSE);
+                stats.separateLexing();
+            }
+            phaseDone(event, "parse");
+        }
+        if (stats != null) {
+            stats.nodes = NodeCounter.count(program);
+        }
+        return program;
+    }
+
+    // DescentParser first. A file it gives up on goes to CUP with the tokens it already lexed, so
+    // the errors and the tree are CUP's. Lexing isn't timed apart from parsing here, the two take
+    // turns token by token
+    private DecList parseDescent(DirectLexer lexer) throws Exception {
+        CompilerEvents.Phase event = phaseBegin();
+        if (stats != null) {
+            stats.begin(Stats.PARSE);
+        }
+        try {
+            program = new DescentParser(lexer, this).parse();
+            if (program == null) {
+                lexer.rewind();
+                program = (DecList) new parser(lexer, this).parse().value;
+            }
+        } finally {
+            if (stats != null) {
+                stats.end(Stats.PARSE);
+                stats.tokens = lexer.tokens.size();
+            }
+            phaseDone(event, "parse");
+        }
+        if (stats != null) {
+            stats.nodes = NodeCounter.count(program);
+        }
+        return program;
+    }
+
+    // ParallelParser first, and the whole file with DescentParser (and CUP after it) if it gives up.
+    // Its workers' CPU time and allocation go into the parse phase too
+    private DecList parseParallel(Source source) throws Exception {
+        CompilerEvents.Phase event = phaseBegin();
+        if (stats != null) {
+            stats.begin(Stats.PARSE);
+        }
+        ParallelParser pieces = new ParallelParser(source, this, parseThreads);
+        try {
+            program = pieces.parse();
+        } finally {
+            if (stats != null) {
+                stats.end(Stats.PARSE);
+                stats.tokens = pieces.tokens;
+            }
+            phaseDone(event, "parse");
+        }
+        if (program == null) {
+            return parseDescent(new DirectLexer(source, this));
+        }
+        if (stats != null) {
+            stats.nodes = NodeCounter.count(program);
+        }
+        return program;
+    }
+
+    public void printTree() {
+        CompilerEvents.Phase event = phaseBegin();
+        if (stats != null) {
+            stats.begin(Stats.TREE);
+        }
+        treeOut.println("The abstract syntax tree is:");
+        program.accept(new ShowTreeVisitor(this), 0);
+        if (stats != null) {
+            treeOut.flush();
+            stats.end(Stats.TREE);
+        }
+        phaseDone(event, "tree");
+    }
+
+    // Checks the program and prints its symbol table. With threads > 0 function bodies are checked on that many
+    // threads (SemanticAnalyzer.checkParallel), 0 checks everything in order
+    public void check(int threads) throws Exception {
+        CompilerEvents.Phase event = phaseBegin();
+        if (stats != null) {
+            stats.begin(Stats.CHECK);
+        }
+        SemanticAnalyzer visitor = new SemanticAnalyzer(this);
+        try {
+            if (threads > 0) {
+                visitor.checkParallel(program, 1, threads);
+            } else {
+                program.accept(visitor, 1);
+            }
+            tableOut.println("Leaving the global scope");
+        } finally {
+            if (stats != null) {
+                tableOut.flush();
+                stats.end(Stats.CHECK);
+                stats.scopes = visitor.symbols.scopesEntered;
+                stats.lookups = visitor.symbols.lookups;
+            }
+            phaseDone(event, "check");
+        }
+    }
+
+    // Prints the diagnostics, see Diagnostics.flush
+    public void flush() {
+        CompilerEvents.Phase event = phaseBegin();
+        if (stats != null) {
+            stats.begin(Stats.ERRORS);
+        }
+        diagnostics.flush(err);
+        if (stats != null) {
+            stats.end(Stats.ERRORS);
+        }
+        phaseDone(event, "errors");
+    }
+
+    // A flight recorder phase event, begun, or null if no recording was ever started
+    private static CompilerEvents.Phase phaseBegin() {
+        if (!CompilerEvents.recording()) {
+            return null;
+        }
+        CompilerEvents.Phase event = new CompilerEvents.Phase();
+        event.begin();
+        return event;
+    }
+
+    // Commits a flight recorder phase event, if a recording wants it
+    private static void phaseDone(CompilerEvents.Phase event, String phase) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+  File Name: CompileClient.java
+  To Run:
+    java -classpath . CompileClient [-socket path] <file> [-a] [-s] [-p] [-e N] [-o dir] [-T stats.json]
+    java -classpath . CompileClient [-socket path] -stop
+
+  Sends one file to a running CompileServer (Main -server) and does what
+  Main would have done with the answer: .abs and .sym files go into tests/
+  (or the -o directory), errors go to stderr, -T's JSON goes to its file and
+  the exit status is 1 if the compile failed. It only uses the JDK, none of the compiler's classes, so
+  the JVM it starts has very little to load.
+*/
+
+import java.io.*;
+import java.net.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+public class CompileClient {
+
+  public static void main(String argv[]) throws IOException {
+    // The same default as CompileServer.DEFAULT_SOCKET
+    String socket = Paths.get(System.getProperty("java.io.tmpdir"), "cm-compiler-" + System.getProperty("user.name"), "cm-compiler.sock").toString();
+    String outputDir = "tests";
+    String file = null;
+    String statsFile = null;
+    boolean stop = false;
+    StringBuilder request = new StringBuilder();
+
+    for (int i = 0; i < argv.length; i++) {
+      if (argv[i].equals("-socket") && i + 1 < argv.length) {
+        socket = argv[++i];
+      } else if (argv[i].equals("-o") && i + 1 < argv.length) {
+        outputDir = argv[++i];
+      } else if (argv[i].equals("-stop")) {
+        stop = true;
+      } else if (argv[i].equals("-T") && i + 1 < argv.length) {
+        statsFile = argv[++i]; // The server sends the JSON back in a stats frame, written here
+        request.append("\t-T\t").append(statsFile);
+      } else if (argv[i].equals("-e") && i + 1 < argv.length) {
+        request.append('\t').append(argv[i]).append('\t').append(argv[++i]); // The option and its value, not a file
+      } else if (file == null && !argv[i].startsWith("-")) {
+        file = argv[i];
+      } else {
+        request.append('\t').append(argv[i]); // Compiler options are passed on as they are
+      }
+    }
+    if (!stop && file == null) {
+      System.err.println("Usage: CompileClient [-socket path] <file> [-a] [-s] [-p] [-e N] [-o dir] [-T stats.json]");
+      System.exit(1);
+    }
+
+    SocketChannel channel;
+    try {
+      channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+    } catch (IOException e) {
+      System.err.println("No compile server on " + socket + ", start one with: java Main -server " + socket);
+      System.exit(1);
+      return;
+    }
+
+    try (SocketChannel connection = channel) {
+      OutputStream out = Channels.newOutputStream(connection);
+      // The server reads the file itself, so it needs a path that doesn't depend on our working directory
+      String line = stop ? "stop" : "compile\t" + Paths.get(file).toAbsolutePath() + request;
+      out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+      out.flush();
+      if (stop) {
+        return;
+      }
+
+      DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(connection)));
+      String name = Paths.get(file).getFileName().toString();
+      if (name.lastIndexOf(".") > 0) {
+        name = name.substring(0, name.lastIndexOf("."));
+      }
+      while (true) {
+        String header = readLine(in);
+        if (header == null) {
+          System.err.println("The compile server closed the connection");
+          System.exit(1);
+        }
+        String[] parts = header.split(" ");
+        if (parts[0].equals("exit")) {
+          System.exit(Integer.parseInt(parts[1]));
+        }
+        byte[] body = new byte[Integer.parseInt(parts[1])];
+        in.readFully(body);
+        if (parts[0].equals("err")) {
+          System.err.write(body);
+          System.err.flush();
+        } else if (parts[0].equals("stats")) {
+          Files.write(Paths.get(statsFile), body);
+        } else {
+          Files.createDirectories(Paths.get(outputDir));
+          Files.write(Paths.get(outputDir, name + "." + parts[0]), body);
+        }
+      }
+    }
+  }
+
+  static String readLine(InputStream in) throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int c;
+    while ((c = in.read()) != '\n') {
+      if (c < 0) {
+        return null;
+      }
+      line.write(c);
+    }
+    return line.toString(StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,224 @@
+/*
+  File Name: CompileServer.java
+  To Run:
+    java -classpath /usr/share/java/cup.jar:. Main -server [socket]
+    java -classpath . CompileClient [-socket path] <file> [-a] [-s] [-p] [-e N] [-o dir] [-T stats.json]
+
+  Keeps one JVM with a warmed up compiler running and listening on a Unix
+  domain socket (cm-compiler.sock in a cm-compiler-<user> directory in the
+  temp directory by default), so a compile costs a few milliseconds instead
+  of starting a new JVM, loading the parser tables and running the whole
+  compiler in the interpreter every time.
+
+  Only the user who started the server can talk to it: the default directory
+  can only be entered by its owner (the server refuses one that belongs to
+  anyone else or is a link), and the socket itself is made owner only once
+  it is bound, so no one else can send it files to read or stop it.
+
+  Each connection is one request, a single line of tab separated fields:
+    compile <absolute path of the .cm file> <options...>
+    stop
+  The server compiles the file the same way Main does (each request has its
+  own Compilation so requests run side by side on the pool) and answers with
+  frames, each a "<name> <length>" line followed by that many bytes:
+    abs  the .abs text, if -a was given and the file parsed
+    sym  the .sym text, if -s was given and the file parsed
+    err  the error messages
+    stats  the -T JSON, if -T was given (the client writes it where -T says)
+  then "exit <status>", 0 if the compile finished and 1 if it failed.
+  CompileClient writes the abs and sym frames to files and err to stderr.
+*/
+
+import java.io.*;
+import java.net.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class CompileServer {
+
+  static final String DEFAULT_SOCKET = Paths.get(System.getProperty("java.io.tmpdir"), "cm-compiler-" + System.getProperty("user.name"),
+                                                 "cm-compiler.sock").toString();
+  static final Set<PosixFilePermission> OWNER_ONLY_DIR = PosixFilePermissions.fromString("rwx------");
+  static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rw-------");
+
+  public static void main(String argv[]) {
+    Path socket = Paths.get(argv.length > 1 ? argv[1] : DEFAULT_SOCKET);
+    try {
+      serve(socket);
+    } catch (IOException e) {
+      System.err.println("Compile server on " + socket + " stopped: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+
+  static void serve(Path socket) throws IOException {
+    warmUp();
+
+    if (socket.toString().equals(DEFAULT_SOCKET)) {
+      privateDirectory(socket.getParent());
+    }
+
+    // A socket file left behind by a server that was killed would make bind fail
+    Files.deleteIfExists(socket);
+    ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+    server.bind(UnixDomainSocketAddress.of(socket));
+    try {
+      Files.setPosixFilePermissions(socket, OWNER_ONLY);
+    } catch (UnsupportedOperationException e) {
+      // Not a POSIX file system, the directory is all there is
+    }
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        Files.deleteIfExists(socket);
+      } catch (IOException e) {
+      }
+    }));
+    System.err.println("Compile server listening on " + socket);
+
+    // Requests are read and answered on the pool so a slow client can't hold up the others
+    ExecutorService pool = Executors.newCachedThreadPool();
+    while (server.isOpen()) {
+      SocketChannel client;
+      try {
+        client = server.accept();
+      } catch (ClosedChannelException e) {
+        break; // A stop request closed it
+      }
+      pool.submit(() -> {
+        try (SocketChannel connection = client) {
+          String request = readLine(Channels.newInputStream(connection));
+          if (request == null) {
+            return;
+          }
+          if (request.equals("stop")) {
+            server.close();
+            return;
+          }
+          answer(request, new BufferedOutputStream(Channels.newOutputStream(connection)));
+        } catch (IOException e) {
+          // The client went away, nothing to answer
+        }
+      });
+    }
+    pool.shutdown();
+    Files.deleteIfExists(socket);
+  }
+
+  // Makes the directory the default socket goes in, only its owner can go into it. One that is
+  // already there has to be a real directory of ours (not a link someone left), and is closed too
+  static void privateDirectory(Path dir) throws IOException {
+    if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+      Files.createDirectories(dir);
+      return;
+    }
+    try {
+      Files.createDirectory(dir, PosixFilePermissions.asFileAttribute(OWNER_ONLY_DIR));
+    } catch (FileAlreadyExistsException e) {
+      // Checked below
+    }
+    String user = System.getProperty("user.name");
+    PosixFileAttributes attributes = Files.readAttributes(dir, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    if (!attributes.isDirectory() || !attributes.owner().getName().equals(user)) {
+      throw new IOException(dir + " isn't a directory of " + user + "'s");
+    }
+    if (!attributes.permissions().equals(OWNER_ONLY_DIR)) {
+      Files.setPosixFilePermissions(dir, OWNER_ONLY_DIR);
+    }
+  }
+
+  // Compiles the file named in one request and sends back the frames described at the top
+  static void answer(String request, OutputStream out) throws IOException {
+    String[] fields = request.split("\t");
+    ByteArrayOutputStream errors = new ByteArrayOutputStream();
+    Map<String, ByteArrayOutputStream> outputs = new LinkedHashMap<String, ByteArrayOutputStream>();
+    Main.Result result;
+
+    if (!fields[0].equals("compile") || fields.length < 2) {
+      errors.write(("Unknown request: " + request + "\n").getBytes(StandardCharsets.UTF_8));
+      result = new Main.Result();
+      result.failed = true;
+    } else {
+      // Whatever goes wrong, a bad option value or an Error out of the lexer, is sent back in the
+      // err frame with exit 1 instead of the connection just closing
+      try (PrintStream err = new PrintStream(errors, true)) {
+        try {
+          Main.Options options = new Main.Options();
+          for (int i = 2; i < fields.length; i++) {
+            i = Main.option(fields, i, options);
+          }
+          result = Main.compile(fields[1], options, err, extension -> {
+            ByteArrayOutputStream text = new ByteArrayOutputStream();
+            outputs.put(extension.substring(1), text);
+            return new PrintStream(text);
+          });
+          if (options.statsFile != null) {
+            ByteArrayOutputStream json = new ByteArrayOutputStream();
+            json.write((Main.statsJson(List.of(result)) + "\n").getBytes(StandardCharsets.UTF_8));
+            outputs.put("stats", json);
+          }
+        } catch (Throwable e) {
+          e.printStackTrace(err);
+          result = new Main.Result();
+          result.failed = true;
+        }
+      }
+    }
+
+    for (Map.Entry<String, ByteArrayOutputStream> output : outputs.entrySet()) {
+      frame(out, output.getKey(), output.getValue());
+    }
+    frame(out, "err", errors);
+    out.write(("exit " + (result.failed ? 1 : 0) + "\n").getBytes(StandardCharsets.US_ASCII));
+    out.flush();
+  }
+
+  static void frame(OutputStream out, String name, ByteArrayOutputStream body) throws IOException {
+    out.write((name + " " + body.size() + "\n").getBytes(StandardCharsets.US_ASCII));
+    body.writeTo(out);
+  }
+
+  // One line without the newline, null at end of stream. Reads a byte at a time so nothing after it is lost
+  static String readLine(InputStream in) throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int c;
+    while ((c = in.read()) != '\n') {
+      if (c < 0) {
+        return line.size() > 0 ? line.toString(StandardCharsets.UTF_8) : null;
+      }
+      line.write(c);
+    }
+    return line.toString(StandardCharsets.UTF_8);
+  }
+
+  // Compiles a small program a few hundred times so the first real request doesn't run in the interpreter
+  static void warmUp() {
+    StringBuilder src = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      src.append("int g").append(i).append(";\n");
+      src.append("int f").append(i).append("(int a, int b[]) {\n");
+      src.append("  int s; bool done;\n");
+      src.append("  s = a * ").append(i).append(";\n");
+      src.append("  while (s > 0) { if (s > b[0]) { s = s - 1; } else { s = s / 2; } }\n");
+      src.append("  done = s == missing;\n");
+      src.append("  return s;\n}\n");
+    }
+    PrintStream nowhere = new PrintStream(OutputStream.nullOutputStream());
+    for (int i = 0; i < 300; i++) {
+      try {
+        Compilation compilation = new Compilation(nowhere);
+        compilation.treeOut = nowhere;
+        compilation.tableOut = nowhere;
+        compilation.parse(new StringReader(src.toString()));
+        compilation.printTree();
+        compilation.check(0);
+        compilation.flush();
+      } catch (Exception e) {
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,81 @@
+import jdk.jfr.*;
+
+/* JDK Flight Recorder events for the compiler, so a recording shows what the compiler was doing
+   next to GC, JIT and I/O events. Record with:
+     java -XX:StartFlightRecording=filename=compile.jfr -cp ... Main file.cm -a -s
+   and open compile.jfr in JDK Mission Control or print it with: jfr print --categories "C- Compiler" compile.jfr
+   Each use first asks recording(), and only then creates the event and asks isEnabled()/shouldCommit().
+   Loading the first Event class starts JFR's own machinery, a few hundred milliseconds that a short
+   compile with no recording would spend on nothing, so until a recording has been started the event
+   classes aren't even loaded. After that the checks are a read of a flag the JIT folds away. */
+public class CompilerEvents {
+
+    // Whether a recording has been started in this JVM, from the command line or later with jcmd
+    public static boolean recording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    // Only one in this many symbol table lookups and inserts is recorded, there is one for almost every node
+    public final static int SYMBOL_SAMPLE = 64;
+
+    @Name("cm.Compile")
+    @Label("Compile")
+    @Category("C- Compiler")
+    @Description("One file, from reading it to printing its errors")
+    public static class Compile extends Event {
+        @Label("File")
+        public String file;
+
+        @Label("Errors")
+        public int errors;
+
+        @Label("Failed")
+        public boolean failed;
+    }
+
+    @Name("cm.Phase")
+    @Label("Compiler Phase")
+    @Category("C- Compiler")
+    @Description("parse (lexing included), tree, check or errors, see Stats")
+    public static class Phase extends Event {
+        @Label("Phase")
+        public String phase;
+    }
+
+    @Name("cm.FunctionCheck")
+    @Label("Function Check")
+    @Category("C- Compiler")
+    @Description("Semantic check of one function body")
+    public static class FunctionCheck extends Event {
+        @Label("Function")
+        public String function;
+
+        @Label("Nodes")
+        @Description("Tree nodes in the function")
+        public long nodes;
+
+        @Label("Parallel")
+        @Description("Checked by a checkParallel worker")
+        public boolean parallel;
+    }
+
+    @Name("cm.Symbol")
+    @Label("Symbol Table Operation")
+    @Category("C- Compiler")
+    @Description("A sample of SemanticAnalyzer lookups and inserts, one in SYMBOL_SAMPLE")
+    @StackTrace(false)
+    public static class Symbol extends Event {
+        @Label("Operation")
+        public String operation;
+
+        @Label("Name")
+        public String name;
+
+        @Label("Scope Depth")
+        public int depth;
+
+        @Label("Found")
+        @Description("For a lookup, whether the name was bound. For an insert, whether it went in")
+        public boolean found;
+    }
+}
@@ -0,0 +1,318 @@
+import absyn.*;
+
+/* A hand-written recursive descent parser for cm.cup's grammar (-r), with the expressions parsed by
+   precedence climbing (Pratt). It reads DirectLexer's Tokens buffer as it is, no Symbol per token
+   and no LALR stack, and builds the same absyn tree CUP's parser does, positions included: a node
+   gets the offset of the last token of the grammar symbol CUP takes its "right" from, which is
+   what last holds at that point.
+   It only knows the grammar without its error productions. At the first token that grammar
+   doesn't allow, parse() stops without reporting anything and returns null, and Compilation hands
+   the same tokens to CUP, which reports the error and recovers the way it always has. So the tree,
+   the errors and every output are CUP's for any file, and a file without syntax errors never
+   touches the LALR driver. bench/DescentCheck compares the two on the tests, generated programs
+   and random expressions, and times both. */
+public class DescentParser {
+
+    // Thrown at the first token only an error production would take, see parse()
+    private static class GiveUp extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        GiveUp() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final static GiveUp GIVE_UP = new GiveUp();
+
+    // cm.cup's precedence lines for the binary operators, higher binds tighter. The comparisons, &&
+    // and || bind tighter than the arithmetic and are nonassociative: a + b < c is a + (b < c), and
+    // a < b < c or a && b || c is a syntax error. 0 for tokens that aren't binary operators
+    private final static int ADD = 1, MULTIPLY = 2, COMPARE = 3;
+    private final static int[] POWER = new int[sym.terminalNames.length];
+    private final static int[] OPERATOR = new int[sym.terminalNames.length];
+    static {
+        int[][] operators = {
+            { sym.PLUS, ADD, OpExp.PLUS }, { sym.MINUS, ADD, OpExp.MINUS },
+            { sym.TIMES, MULTIPLY, OpExp.TIMES }, { sym.OVER, MULTIPLY, OpExp.OVER },
+            { sym.LT, COMPARE, OpExp.LT }, { sym.GT, COMPARE, OpExp.GT }, { sym.LTEQ, COMPARE, OpExp.LTEQ },
+            { sym.GTEQ, COMPARE, OpExp.GTEQ }, { sym.EQ, COMPARE, OpExp.EQ }, { sym.NEQ, COMPARE, OpExp.NEQ },
+            { sym.AND, COMPARE, OpExp.AND }, { sym.OR, COMPARE, OpExp.OR },
+        };
+        for (int[] operator : operators) {
+            POWER[operator[0]] = operator[1];
+            OPERATOR[operator[0]] = operator[2];
+        }
+    }
+
+    private final DirectLexer lexer;
+    private final Tokens tokens;
+    private final NameTable names;
+
+    private int next = 0;  // Index in tokens of the next token to take
+    private int last = -1; // Offset of the last token taken
+
+    public DescentParser(DirectLexer lexer, Compilation compilation) {
+        this.lexer = lexer;
+        this.tokens = lexer.tokens;
+        this.names = compilation.names;
+    }
+
+    // The program, or null if it has anything only CUP's error productions take. Nothing has been
+    // reported then; the tokens read so far are still in the lexer's buffer for CUP to start over on
+    public DecList parse() {
+        try {
+            DecList list = new DecList(declaration());
+            while (peek(0) != sym.EOF) {
+                list.add(declaration());
+            }
+            return list.trim();
+        } catch (GiveUp e) {
+            return null;
+        } catch (StackOverflowError e) {
+            return null; // Nested deeper than the Java stack goes, CUP keeps its own stack on the heap
+        }
+    }
+
+    /* ------------------------------------ TOKENS ------------------------------------ */
+
+    // Kind of the token ahead tokens after the next one, lexing it if it isn't in the buffer yet
+    private int peek(int ahead) {
+        while (next + ahead >= tokens.size()) {
+            boolean more;
+            try {
+                more = lexer.advance();
+            } catch (Error e) {
+                throw GIVE_UP; // Input no rule matches, CUP gets the same Error at the same token
+            }
+            if (!more) {
+                return sym.EOF;
+            }
+        }
+        return tokens.kind(next + ahead);
+    }
+
+    // Takes the next token, which peek has already lexed, and returns its index in tokens
+    private int take() {
+        last = tokens.offset(next);
+        return next++;
+    }
+
+    private int take(int kind) {
+        if (peek(0) != kind) {
+            throw GIVE_UP;
+        }
+        return take();
+    }
+
+    private boolean takeIf(int kind) {
+        if (peek(0) != kind) {
+            return false;
+        }
+        take();
+        return true;
+    }
+
+    /* --------------------------------- DECLARATIONS --------------------------------- */
+
+    private NameTy typeSpec() {
+        switch (peek(0)) {
+            case sym.BOOL: take(); return new NameTy(last, NameTy.BOOL);
+            case sym.INT: take(); return new NameTy(last, NameTy.INT);
+            case sym.VOID: take(); return new NameTy(last, NameTy.VOID);
+            default: throw GIVE_UP;
+        }
+    }
+
+    // A variable, function or prototype at the top level
+    private Dec declaration() {
+        NameTy type = typeSpec();
+        int pos = last;
+        int id = tokens.value(take(sym.ID));
+        if (peek(0) != sym.LPAREN) {
+            return variable(pos, type, id);
+        }
+        take();
+        VarDecList params = params();
+        take(sym.RPAREN);
+        if (takeIf(sym.SEMI)) {
+            return new FunctionDec(pos, type, names.name(id), id, params, new NilExp(pos));
+        }
+        return new FunctionDec(pos, type, names.name(id), id, params, compound());
+    }
+
+    // The rest of a var_declaration after its type and name
+    private VarDec variable(int pos, NameTy type, int id) {
+        if (takeIf(sym.SEMI)) {
+            return new SimpleDec(pos, type, names.name(id), id);
+        }
+        take(sym.LBRACK);
+        int length = tokens.value(take(sym.NUM));
+        take(sym.RBRACK);
+        take(sym.SEMI);
+        return new ArrayDec(pos, type, names.name(id), id, length);
+    }
+
+    // void alone is no parameters at all, null like CUP's params ::= VOID
+    private VarDecList params() {
+        if (peek(0) == sym.VOID && peek(1) != sym.ID) {
+            take();
+            return null;
+        }
+        VarDecList list = new VarDecList(param());
+        while (takeIf(sym.COMMA)) {
+            list.add(param());
+        }
+        return list;
+    }
+
+    private VarDec param() {
+        NameTy type = typeSpec();
+        int pos = last;
+        int id = tokens.value(take(sym.ID));
+        if (takeIf(sym.LBRACK)) {
+            take(sym.RBRACK);
+            return new ArrayDec(pos, type, names.name(id), id, 0);
+        }
+        return new SimpleDec(pos, type, names.name(id), id);
+    }
+
+    /* ---------------------------------- STATEMENTS ---------------------------------- */
+
+    private CompoundExp compound() {
+        take(sym.LCURLBRACK);
+        VarDecList decs = new VarDecList();
+        while (peek(0) == sym.BOOL || peek(0) == sym.INT || peek(0) == sym.VOID) {
+            NameTy type = typeSpec();
+            int pos = last;
+            decs.add(variable(pos, type, tokens.value(take(sym.ID))));
+        }
+        int pos = last; // The last declaration's ';', or the '{' if there are none
+        ExpList stmts = new ExpList();
+        while (peek(0) != sym.RCURLBRACK) {
+            stmts.add(statement());
+        }
+        take();
+        return new CompoundExp(pos, decs.trim(), stmts.trim());
+    }
+
+    private Exp statement() {
+        switch (peek(0)) {
+            case sym.LCURLBRACK:
+                return compound();
+            case sym.SEMI:
+                take();
+                return new NilExp(last);
+            case sym.IF: {
+                take();
+                int pos = last;
+                take(sym.LPAREN);
+                Exp test = expression(0);
+                take(sym.RPAREN);
+                Exp then = statement();
+                Exp otherwise = takeIf(sym.ELSE) ? statement() : new NilExp(pos); // else goes with the nearest if
+                return new IfExp(pos, test, then, otherwise);
+            }
+            case sym.WHILE: {
+                take();
+                int pos = last;
+                take(sym.LPAREN);
+                Exp test = expression(0);
+                take(sym.RPAREN);
+                return new WhileExp(pos, test, statement());
+            }
+            case sym.RETURN: {
+                take();
+                int pos = last;
+                if (takeIf(sym.SEMI)) {
+                    return new ReturnExp(pos, new NilExp(pos));
+                }
+                Exp value = expression(0);
+                take(sym.SEMI);
+                return new ReturnExp(pos, value);
+            }
+            default: {
+                Exp exp = expression(0);
+                take(sym.SEMI);
+                return exp;
+            }
+        }
+    }
+
+    /* ---------------------------------- EXPRESSIONS --------------------------------- */
+
+    // An expression with no binary operator looser than power outside of its operands. Left
+    // associative chains are built in the loop, only operands and parentheses recurse
+    private Exp expression(int power) {
+        Exp left = operand();
+        int leftEnd = last;
+        while (true) {
+            int kind = peek(0);
+            int operatorPower = POWER[kind];
+            if (operatorPower == 0 || operatorPower < power) {
+                return left;
+            }
+            take();
+            Exp right = expression(operatorPower + 1);
+            left = new OpExp(leftEnd, left, OPERATOR[kind], right);
+            leftEnd = last;
+            if (operatorPower == COMPARE && POWER[peek(0)] == COMPARE) {
+                throw GIVE_UP; // Nonassociative
+            }
+        }
+    }
+
+    // ~ binds tighter than any binary operator. An assignment's right hand side takes everything
+    // after the '=', since ASSIGN is the loosest of all: a + b = c + d is a + (b = (c + d))
+    private Exp operand() {
+        switch (peek(0)) {
+            case sym.APPROX: {
+                take();
+                int pos = last;
+                Exp exp = operand();
+                return new OpExp(last, exp, OpExp.APPROX, new NilExp(pos));
+            }
+            case sym.LPAREN: {
+                take();
+                Exp exp = expression(0);
+                take(sym.RPAREN);
+                return exp;
+            }
+            case sym.NUM:
+                return new IntExp(tokens.offset(next), tokens.value(take()));
+            case sym.TRUTH:
+                return new BoolExp(tokens.offset(next), tokens.value(take()) == 1);
+            case sym.ID:
+                break;
+            default:
+                throw GIVE_UP;
+        }
+
+        int id = tokens.value(take());
+        int pos = last;
+        if (takeIf(sym.LPAREN)) {
+            if (takeIf(sym.RPAREN)) {
+                return new CallExp(pos, names.name(id), id, new ExpList(new NilExp(pos)));
+            }
+            ExpList args = new ExpList(expression(0));
+            while (takeIf(sym.COMMA)) {
+                args.add(expression(0));
+            }
+            take(sym.RPAREN);
+            return new CallExp(pos, names.name(id), id, args);
+        }
+
+        Var var;
+        if (takeIf(sym.LBRACK)) {
+            Exp index = expression(0);
+            take(sym.RBRACK);
+            var = new IndexVar(pos, names.name(id), id, index);
+        } else {
+            var = new SimpleVar(pos, names.name(id), id);
+        }
+        int varEnd = last;
+        if (takeIf(sym.ASSIGN)) {
+            return new AssignExp(varEnd, new VarExp(varEnd, var), expression(0));
+        }
+        return new VarExp(varEnd, var);
+    }
+}
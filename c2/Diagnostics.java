@@ -0,0 +1,250 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/* Every error message for one file goes through here instead of being printed where it's found.
+   A report is just a record (message code, severity, position and up to two arguments) written into
+   arrays that are allocated once and grown rarely, so reporting costs no string building and no I/O.
+   flush() sorts the records by position, drops exact repeats (the same message at the same place,
+   which error recovery tends to produce), turns them into text and prints them in one write.
+   With a limit set, reaching it throws LimitReached so the compile can stop early. */
+public class Diagnostics {
+
+    public final static int ERROR = 0;
+    public final static int WARNING = 1;
+
+    // Message codes, FORMATS holds the text for each one
+    public final static int UNKNOWN_CHAR       = 0;
+    public final static int SYNTAX             = 1;
+    public final static int SYNTAX_NO_POSITION = 2;
+    public final static int EXPECTED           = 3;
+    public final static int REDEFINED          = 4;
+    public final static int UNDEFINED          = 5;
+    public final static int DELETE_UNDEFINED   = 6;
+    public final static int ASSIGN_MISMATCH    = 7;
+    public final static int ASSIGN_UNDECLARED  = 8;
+    public final static int IF_NOT_BOOL        = 9;
+    public final static int WHILE_NOT_BOOL     = 10;
+    public final static int LEFT_NOT_INT       = 11;
+    public final static int RIGHT_NOT_INT      = 12;
+    public final static int LEFT_NOT_BOOL      = 13;
+    public final static int RIGHT_NOT_BOOL     = 14;
+    public final static int MISSING_OPERAND    = 15;
+    public final static int BAD_OPERATOR       = 16;
+    public final static int ARRAY_VOID         = 17;
+    public final static int ARRAY_NULL         = 18;
+    public final static int BAD_TYPE           = 19;
+    public final static int FUNC_UNDEFINED     = 20;
+    public final static int VOID_ARGS          = 21;
+    public final static int EXPECTED_VOID_ARGS = 22;
+    public final static int ARG_TYPE           = 23;
+    public final static int FUNC_NOT_GLOBAL    = 24;
+    public final static int FUNC_REDEFINED     = 25;
+    public final static int INDEX_NOT_INT      = 26;
+    public final static int BAD_RETURN         = 27;
+    public final static int VAR_UNDECLARED     = 28;
+    public final static int EXPECTED_TOKENS    = 29;
+    public final static int NUM_RANGE          = 30;
+    public final static int UNCLOSED_COMMENT   = 31;
+
+    // {line} and {column} count from 1, {0} and {1} are the arguments
+    private final static String[] FORMATS = {
+        "ERROR: Character was not recognized '{0}' on line {line}",
+        "Error in line {line}, column {column} : {0}",
+        "Error : {0}",
+        "Error in line {line}, column {column}: Syntax error\ninstead expected {0}\nError: {1}",
+        "Semantic Error (col {column}, row {line}): cannot insert redefined variable key '{0}'.",
+        "Semantic Error (col {column}, row {line}): cannot look up undefined variable key '{0}'.",
+        "Semantic Error (col {column}, row {line}): cannot delete undefined variable key '{0}'.",
+        "Error in line {line}, column {column} Semantic Error: In Assignment operator left and right hand side types differ\n",
+        "Error in line {line}, column {column} Semantic Error: Assign operators left hand side variable was never declared\n",
+        "Error in line {line}, column {column} Semantic Error: if Conditional statement is not of the boolean type\n",
+        "Error in line {line}, column {column} Semantic Error: While Conditional statement is not of the boolean type\n",
+        "Error in line {line}, column {column} Semantic Error: incorrect type for lefthand, not of type INT\n",
+        "Error in line {line}, column {column} Semantic Error: incorrect type for righthand, not of type INT\n",
+        "Error in line {line}, column {column} Semantic Error: incorrect type for lefthand, not of type Boolean\n",
+        "Error in line {line}, column {column} Semantic Error: incorrect type for righthand, not of type Boolean\n",
+        "Error in line {line}, column {column} Syntax Error: Missing right/left values in mathmatical operator\n",
+        "Error in line {line}, column {column} Syntax Error: Unrecognized operator\n",
+        "Error in line {line}, column {column} Syntax Error: Invalid array type detected: void\n",
+        "Error in line {line}, column {column} Syntax Error: Invalid array type detected: null\n",
+        "Error in line {line}, column {column} Syntax Error: Invalid type detected\n",
+        "Error in line {line}, column {column}: Function '{0}' was never defined",
+        "Error in line {line}, column {column}: Function does not expect void arguments",
+        "Error in line {line}, column {column}: Function expected void arguments but got parameters",
+        "Error in line {line}, column {column} Semantic Error: Function call contains invalid types\n{0} expected a different type\n",
+        "Error in line {line}, column {column} Semantic Error: Function not defined in the global scope\n",
+        "Error in line {line}, column {column} Semantic Error: Function '{0}' was already defined\n",
+        "Error in line {line}, column {column} Syntax Error: Index is not of type int\n",
+        "Error in line {line}, column {column} Semantic Error: Invalid return type\n",
+        "Error in line {line}, column {column} Semantic Error: Varriable was not declared\n",
+        "instead expected token classes are {0}",
+        "Error in line {line}, column {column} : Number {0} is too large for an int",
+        "Error in line {line}, column {column} : Comment is never closed",
+    };
+
+    // Thrown by report once the limit is reached
+    public static class LimitReached extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public LimitReached(int limit) {
+            super("Stopped after " + limit + " errors");
+        }
+    }
+
+    // Thrown when the parser can't recover, after the error is reported
+    public static class Fatal extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public Fatal(String message) {
+            super(message);
+        }
+    }
+
+    // The records, one slot per report. A position is the offset in the source, source turns it into a line and column
+    private byte[] codes = new byte[64];
+    private byte[] severities = new byte[64];
+    private int[] positions = new int[64];
+    private String[] args = new String[128];
+    private int size = 0;
+    private int errors = 0;
+    private int limit = 0; // 0 is no limit
+    private boolean limitReached = false;
+
+    private Source source = null; // Where lines and columns come from, without one every position is on the first line
+
+    public void setSource(Source source) {
+        this.source = source;
+    }
+
+    // Stop after this many errors, 0 for no limit
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int errorCount() {
+        return errors;
+    }
+
+    public void error(int code, int pos) {
+        report(code, ERROR, pos, null, null);
+    }
+
+    public void error(int code, int pos, String arg) {
+        report(code, ERROR, pos, arg, null);
+    }
+
+    public void error(int code, int pos, String arg0, String arg1) {
+        report(code, ERROR, pos, arg0, arg1);
+    }
+
+    // For messages with no position of their own: sorted in right after the error reported before it
+    public void errorAfterLast(int code, String arg) {
+        report(code, ERROR, size == 0 ? 0 : positions[size - 1], arg, null);
+    }
+
+    public void report(int code, int severity, int position, String arg0, String arg1) {
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, size * 2);
+            severities = Arrays.copyOf(severities, size * 2);
+            positions = Arrays.copyOf(positions, size * 2);
+            args = Arrays.copyOf(args, size * 4);
+        }
+        codes[size] = (byte) code;
+        severities[size] = (byte) severity;
+        positions[size] = Math.max(position, 0);
+        args[2 * size] = arg0;
+        args[2 * size + 1] = arg1;
+        size++;
+
+        if (severity == ERROR) {
+            errors++;
+            if (limit > 0 && errors >= limit) {
+                limitReached = true;
+                throw new LimitReached(limit);
+            }
+        }
+    }
+
+    // Reports records from..to-1 of another set again here, in the same order (see SemanticAnalyzer.checkParallel)
+    public void copy(Diagnostics from, int start, int end) {
+        for (int i = start; i < end; i++) {
+            report(from.codes[i], from.severities[i], from.positions[i], from.args[2 * i], from.args[2 * i + 1]);
+        }
+    }
+
+    // Prints everything reported so far in source order and starts over
+    public void flush(PrintStream err) {
+        // Sort the record numbers by position, records at the same position stay in the order they came in
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(positions[a], positions[b]));
+
+        StringBuilder text = new StringBuilder();
+        for (int k = 0; k < size; k++) {
+            int i = order[k];
+            if (!repeated(order, k)) {
+                format(i, text);
+                text.append('\n');
+            }
+        }
+        if (limitReached) {
+            text.append("Too many errors, stopped after ").append(limit).append('\n');
+        }
+        err.print(text);
+        err.flush();
+
+        Arrays.fill(args, 0, 2 * size, null);
+        size = 0;
+        errors = 0;
+        limitReached = false;
+    }
+
+    // Whether the same message was already printed for this position
+    private boolean repeated(Integer[] order, int k) {
+        int i = order[k];
+        for (int p = k - 1; p >= 0 && positions[order[p]] == positions[i]; p--) {
+            int j = order[p];
+            if (codes[j] == codes[i] && same(args[2 * j], args[2 * i]) && same(args[2 * j + 1], args[2 * i + 1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean same(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private void format(int i, StringBuilder text) {
+        String format = FORMATS[codes[i]];
+        int at = 0;
+        while (at < format.length()) {
+            char c = format.charAt(at);
+            int close = c == '{' ? format.indexOf('}', at) : -1;
+            if (close < 0) {
+                text.append(c);
+                at++;
+                continue;
+            }
+            String field = format.substring(at + 1, close);
+            if (field.equals("line")) {
+                text.append((source == null ? 0 : source.line(positions[i])) + 1);
+            } else if (field.equals("column")) {
+                text.append((source == null ? positions[i] : source.column(positions[i])) + 1);
+            } else if (field.equals("0")) {
+                text.append(args[2 * i]);
+            } else if (field.equals("1")) {
+                text.append(args[2 * i + 1]);
+            } else {
+                text.append(format, at, close + 1);
+            }
+            at = close + 1;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+import java.io.IOException;
+import java.io.Reader;
+import java_cup.runtime.Symbol;
+import absyn.NameTable;
+
+/* A hand-written lexer for the same tokens as cm.flex (-l). It reads a Source, the mapped bytes
+   of an ASCII file or decoded chars, and finds each token by a switch on its first character
+   instead of JFlex's tables. Identifiers are interned straight from the source and keywords are
+   recognized with a perfect hash on (first char + last char + length). Tokens go into a Tokens
+   buffer as kind, start offset and an int value, so lexing allocates nothing per token and
+   doesn't count lines or columns at all (Source works those out from an offset when asked).
+   next_token() hands the parser the next one as a Symbol. It gives the parser exactly the tokens
+   Lexer does, positions and errors included: a comment ends at the first star and slash, one
+   that never does is reported, and a character no rule matches stops with the same Error JFlex
+   throws. bench/LexerSpeed checks it against Lexer token for token and times both. */
+public class DirectLexer implements java_cup.runtime.Scanner {
+
+    // Keywords by hash, see word()
+    private final static String[] KEYWORDS = new String[32];
+    private final static int[] KEYWORD_TOKENS = new int[32];
+    static {
+        String[] words = { "bool", "else", "if", "int", "return", "void", "while", "true", "false" };
+        int[] tokens = { sym.BOOL, sym.ELSE, sym.IF, sym.INT, sym.RETURN, sym.VOID, sym.WHILE, sym.TRUTH, sym.TRUTH };
+        for (int i = 0; i < words.length; i++) {
+            int slot = hash(words[i].charAt(0), words[i].charAt(words[i].length() - 1), words[i].length());
+            KEYWORDS[slot] = words[i];
+            KEYWORD_TOKENS[slot] = tokens[i];
+        }
+    }
+
+    private final NameTable names;
+    private final Diagnostics diagnostics;
+    private final Source source;
+    private final int end; // Where to stop, the end of the source unless lexing only part of it
+    private int pos; // Next character to look at
+
+    public final Tokens tokens; // Every token lexed so far
+    private int handed = 0; // Tokens next_token() has given the parser
+
+    public DirectLexer(Reader in, Compilation compilation) throws IOException {
+        this(Source.read(in), compilation);
+    }
+
+    public DirectLexer(Source source, Compilation compilation) {
+        this(source, 0, source.length(), compilation);
+    }
+
+    // Only the characters from start to end, for a piece of the file (ParallelParser). Offsets are
+    // still the whole source's
+    public DirectLexer(Source source, int start, int end, Compilation compilation) {
+        names = compilation.names;
+        diagnostics = compilation.diagnostics;
+        this.source = source;
+        this.end = end;
+        pos = start;
+        tokens = new Tokens(names, source, end - start);
+    }
+
+    private static int hash(char first, char last, int length) {
+        return (first + last + length) & 31;
+    }
+
+    public Symbol next_token() {
+        if (handed == tokens.size() && !advance()) {
+            return null; // Same as cm.flex's %eofval
+        }
+        return tokens.symbol(handed++);
+    }
+
+    // Hands the parser the tokens already in the buffer again from the first, then goes on lexing.
+    // For when DescentParser gives a file up to CUP
+    public void rewind() {
+        handed = 0;
+    }
+
+    // Lexes the next token into tokens, false at the end of the input
+    public boolean advance() {
+        skipWhitespace();
+        while (pos < end && source.charAt(pos) == '/' && comment()) {
+            skipWhitespace();
+        }
+        if (pos >= end) {
+            return false;
+        }
+
+        int start = pos;
+        char c = source.charAt(pos);
+        int token;
+        switch (c) {
+            case '+': token = sym.PLUS; break;
+            case '-': token = sym.MINUS; break;
+            case '*': token = sym.TIMES; break;
+            case '~': token = sym.APPROX; break;
+            case ';': token = sym.SEMI; break;
+            case ',': token = sym.COMMA; break;
+            case '(': token = sym.LPAREN; break;
+            case ')': token = sym.RPAREN; break;
+            case '[': token = sym.LBRACK; break;
+            case ']': token = sym.RBRACK; break;
+            case '{': token = sym.LCURLBRACK; break;
+            case '}': token = sym.RCURLBRACK; break;
+            case '<': token = next('=') ? sym.LTEQ : sym.LT; break;
+            case '>': token = next('=') ? sym.GTEQ : sym.GT; break;
+            case '=': token = next('=') ? sym.EQ : sym.ASSIGN; break;
+            case '!': token = next('=') ? sym.NEQ : -1; break;
+            case '|': token = next('|') ? sym.OR : -1; break;
+            case '&': token = next('&') ? sym.AND : -1; break;
+            case '/': token = sym.OVER; break;
+            default:
+                if (c >= '0' && c <= '9') {
+                    number(start);
+                    return true;
+                }
+                if (c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                    do {
+                        pos++;
+                    } while (pos < end && isIdentifierPart(source.charAt(pos)));
+                    word(start, pos - start);
+                    return true;
+                }
+                token = -1;
+        }
+
+        if (token < 0) {
+            unknown(start);
+            return true;
+        }
+        pos++;
+        tokens.add(token, start, 0);
+        return true;
+    }
+
+    // A number, its value worked out as the digits go by. One too large for an int is reported
+    // and kept as the largest int, the same as the JFlex Lexer
+    private void number(int start) {
+        int value = 0;
+        boolean tooLarge = false;
+        for (; pos < end && source.charAt(pos) >= '0' && source.charAt(pos) <= '9'; pos++) {
+            int digit = source.charAt(pos) - '0';
+            tooLarge |= value > (Integer.MAX_VALUE - digit) / 10;
+            value = value * 10 + digit;
+        }
+        if (tooLarge) {
+            diagnostics.error(Diagnostics.NUM_RANGE, start, source.text(start, pos - start));
+            value = Integer.MAX_VALUE;
+        }
+        tokens.add(sym.NUM, start, value);
+    }
+
+    // Takes the second character of a two character operator if it's there
+    private boolean next(char second) {
+        if (pos + 1 < end && source.charAt(pos + 1) == second) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    // A keyword, true/false or an identifier
+    private void word(int start, int length) {
+        int slot = hash(source.charAt(start), source.charAt(start + length - 1), length);
+        String keyword = KEYWORDS[slot];
+        if (keyword != null && keyword.length() == length && same(keyword, start)) {
+            tokens.add(KEYWORD_TOKENS[slot], start, keyword.equals("true") ? 1 : 0);
+        } else {
+            tokens.add(sym.ID, start, source.intern(names, start, length));
+        }
+    }
+
+    // The keyword's characters against the source from start, lengths are already equal
+    private boolean same(String keyword, int start) {
+        for (int i = 0; i < keyword.length(); i++) {
+            if (source.charAt(start + i) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A comment runs from "/*" to the first "*/" after it, stars inside and all. Skips it and returns
+    // true if there is one, otherwise leaves the '/' to be lexed on its own. One that is never
+    // closed is reported where it starts and takes the rest of the file, like Lexer's COMMENT state
+    private boolean comment() {
+        if (pos + 1 >= end || source.charAt(pos + 1) != '*') {
+            return false;
+        }
+        for (int star = pos + 2; star + 1 < end; star++) {
+            if (source.charAt(star) == '*' && source.charAt(star + 1) == '/') {
+                pos = star + 2;
+                return true;
+            }
+        }
+        diagnostics.error(Diagnostics.UNCLOSED_COMMENT, pos);
+        pos = end;
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            char c = source.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    // cm.flex's '.' rule: any one character but a line terminator is reported and becomes an ERROR token
+    private void unknown(int start) {
+        char c = source.charAt(start);
+        if (c == '\u000B' || c == '\u000C' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+            throw new Error("Error: could not match input"); // What JFlex throws when no rule matches
+        }
+        int length = Character.isHighSurrogate(c) && start + 1 < end && Character.isLowSurrogate(source.charAt(start + 1)) ? 2 : 1;
+        String text = source.text(start, length);
+        diagnostics.error(Diagnostics.UNKNOWN_CHAR, start, text);
+        pos = start + length;
+        tokens.add(sym.ERROR, start, 0);
+    }
+}
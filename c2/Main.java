@@ -17,59 +17,238 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
    
 class Main {
+  // What to do with each file, set from the command line
+  static class Options {
+    boolean printAST = false;
+    boolean printTable = false;
+    boolean parallel = false;
+    int errorLimit = 0;
+    String outputDir = "tests"; // Where .abs and .sym files go, null puts them next to the source file
+    boolean timing = false; // Print a Stats table after the errors
+    String statsFile = null; // Write the Stats as JSON to this file
+    boolean directLexer = false; // Lex with DirectLexer, same tokens as the JFlex Lexer
+    boolean descentParser = false; // Parse with DescentParser, same tree and errors as CUP's parser
+    boolean parallelParse = false; // Parse a large file in pieces on a thread per core
+  }
+
+  // How compiling one file went
+  static class Result {
+    String file;
+    long parseTime = 0; // Nanoseconds spent lexing and parsing
+    long checkTime = 0; // Nanoseconds spent in the semantic analyzer
+    int errors = 0;
+    boolean failed = false; // The parser gave up or something threw
+    Stats stats = null; // Per phase numbers, with -t or -T
+  }
+
+  // Opens the stream for an output file of a compile, given its extension (".abs" or ".sym")
+  interface Outputs {
+    PrintStream open(String extension) throws IOException;
+  }
+
   //public final static boolean SHOW_TREE = true;
   static public void main(String argv[]) {    
+    // Many files at once, see Batch
+    if (argv.length > 0 && argv[0].equals("-b")) {
+      Batch.main(argv);
+      return;
+    }
+
+    // Stay running and compile for CompileClient, see CompileServer
+    if (argv.length > 0 && argv[0].equals("-server")) {
+      CompileServer.main(argv);
+      return;
+    }
+
     /* Start the parser */
+    Options options = new Options();
+    for(int i = 1; i < argv.length; i++)
+    {
+      i = option(argv, i, options);
+    }
 
-    boolean printAST = false;
-    boolean printTable = false;
+    Result result = compile(argv[0], options, System.err);
+    if (options.statsFile != null) {
+      writeStats(options.statsFile, java.util.List.of(result));
+    }
+    if (result.failed) {
+      System.exit(1);
+    }
+  }
 
-    for(String commandArgs : argv)
+  // Reads the option at argv[i] into options and returns the index of its last argument, unknown options are skipped
+  static int option(String argv[], int i, Options options) {
+    String commandArgs = argv[i];
+    if(commandArgs.equals("-a"))
     {
-      if(commandArgs.equals("-a"))
-      {
-        printAST = true;
-      }
+      options.printAST = true;
+    }
 
-      
-      else if(commandArgs.equals("-s"))
-      {
-        printTable = true;
-      }
-      
     
+    else if(commandArgs.equals("-s"))
+    {
+      options.printTable = true;
+    }
+
+    // Check function bodies on a thread per core, same output as checking in order
+    else if(commandArgs.equals("-p"))
+    {
+      options.parallel = true;
+    }
+
+    // Stop after this many errors
+    else if(commandArgs.equals("-e") && i + 1 < argv.length)
+    {
+      options.errorLimit = Integer.parseInt(argv[++i]);
+    }
+
+    // Time, CPU time and allocation for each phase, plus token, node, scope and lookup counts
+    else if(commandArgs.equals("-t"))
+    {
+      options.timing = true;
     }
-    try {
-      parser p = new parser(new Lexer(new FileReader(argv[0])));
-      Absyn result = (Absyn)(p.parse().value);
 
-      Path filePath = Paths.get(argv[0]);
-      Path nameOfFile = filePath.getFileName();
-      String fileName = nameOfFile.toString();
+    // The same numbers as JSON, to keep and compare between versions
+    else if(commandArgs.equals("-T") && i + 1 < argv.length)
+    {
+      options.statsFile = argv[++i];
+    }
+
+    // The hand-written lexer instead of the JFlex one
+    else if(commandArgs.equals("-l"))
+    {
+      options.directLexer = true;
+    }
+
+    // The hand-written parser instead of CUP's, it reads DirectLexer's tokens so -l comes with it
+    else if(commandArgs.equals("-r"))
+    {
+      options.descentParser = true;
+    }
+
+    // Parse a large file's top-level declarations in pieces on a thread per core, with DescentParser
+    // so -r and -l come with it
+    else if(commandArgs.equals("-P"))
+    {
+      options.parallelParse = true;
+    }
+    return i;
+  }
+
+  // Writes the Stats of each compile as a JSON array
+  static void writeStats(String file, java.util.List<Result> results) {
+    try (PrintStream json = new PrintStream(new FileOutputStream(file))) {
+      json.println(statsJson(results));
+    } catch (IOException e) {
+      System.err.println("Can't write " + file + ": " + e.getMessage());
+    }
+  }
+
+  // The JSON array writeStats writes, also what CompileServer sends back for -T
+  static String statsJson(java.util.List<Result> results) {
+    java.util.StringJoiner array = new java.util.StringJoiner(",\n  ", "[\n  ", "\n]");
+    for (Result result : results) {
+      if (result.stats != null) {
+        array.add(result.stats.toJson(result.file));
+      }
+    }
+    return array.toString();
+  }
+
+  // Compiles one file, writing its .abs and .sym files and printing its errors to err.
+  // Everything it uses belongs to its own Compilation, so any number of files can be compiled at once
+  static Result compile(String file, Options options, PrintStream err) {
+    String outputName = outputName(file, options);
+    return compile(file, options, err, extension ->
+      new PrintStream(new BufferedOutputStream(new FileOutputStream(outputName + extension))));
+  }
+
+  // Where a file's .abs and .sym go without their extension: the file's name less its own, in the
+  // output directory or next to the file
+  static String outputName(String file, Options options) {
+    Path filePath = Paths.get(file);
+    Path nameOfFile = filePath.getFileName();
+    String fileName = nameOfFile.toString();
+    if (fileName.lastIndexOf(".") > 0) {
       fileName = fileName.substring(0, fileName.lastIndexOf("."));
+    }
+    Path outputDir = options.outputDir != null ? Paths.get(options.outputDir) : filePath.toAbsolutePath().getParent();
+    return outputDir.resolve(fileName).toAbsolutePath().normalize().toString();
+  }
 
-      if (printAST && result != null) {
-        PrintStream fileOutput = new PrintStream(new FileOutputStream("tests/" + fileName + ".abs"));
-        System.setOut(fileOutput);
-        System.out.println("The abstract syntax tree is:");
-        AbsynVisitor visitor = new ShowTreeVisitor();
-        result.accept(visitor, 0); 
+  // The same, but the .abs and .sym output goes wherever outputs says
+  static Result compile(String file, Options options, PrintStream err, Outputs outputs) {
+    Result result = new Result();
+    result.file = file;
+    CompilerEvents.Compile event = CompilerEvents.recording() ? new CompilerEvents.Compile() : null;
+    if (event != null) {
+      event.begin();
+    }
+    Compilation compilation = new Compilation(err);
+    compilation.diagnostics.setLimit(options.errorLimit);
+    compilation.directLexer = options.directLexer;
+    compilation.descentParser = options.descentParser;
+    if (options.parallelParse) {
+      compilation.parseThreads = Runtime.getRuntime().availableProcessors();
+    }
+    if (options.timing || options.statsFile != null) {
+      compilation.stats = new Stats();
+    }
+    long start = System.nanoTime();
+    long checkStart = 0;
+    try {
+      DecList tree = compilation.parse(Source.open(file));
+      result.parseTime = System.nanoTime() - start;
+
+      if (options.printAST && tree != null) {
+        try (PrintStream fileOutput = outputs.open(".abs")) {
+          compilation.treeOut = fileOutput;
+          compilation.printTree();
+        }
       }
 
       
-      if(printTable && result != null) {
-        PrintStream fileOutput = new PrintStream(new FileOutputStream("tests/" + fileName + ".sym"));
-        System.setOut(fileOutput);
-        //System.out.println("In the global scope");
-        SemanticAnalyzer visitor = new SemanticAnalyzer();
-        result.accept(visitor, 1);
-        //visitor.printTable();//don't need this, prints as we traverse tree as we get rid of the tables as we go along
-        System.out.println("Leaving the global scope");
+      if(options.printTable && tree != null) {
+        checkStart = System.nanoTime();
+        try (PrintStream fileOutput = outputs.open(".sym")) {
+          compilation.tableOut = fileOutput;
+          compilation.check(options.parallel ? Runtime.getRuntime().availableProcessors() : 0);
+        }
       }
       
+    } catch (Diagnostics.LimitReached e) {
+      /* Too many errors, the ones found so far are printed below */
+    } catch (Diagnostics.Fatal e) {
+      /* The parser couldn't recover, its error is printed below */
+      result.failed = true;
     } catch (Exception e) {
       /* do cleanup here -- possibly rethrow e */
-      e.printStackTrace();
+      e.printStackTrace(err);
+      result.failed = true;
+    } finally {
+      if (result.parseTime == 0) {
+        result.parseTime = System.nanoTime() - start; // The parse itself stopped
+      }
+      if (checkStart != 0) {
+        result.checkTime = System.nanoTime() - checkStart;
+      }
+      result.errors = compilation.diagnostics.errorCount();
+      compilation.flush();
+      result.stats = compilation.stats;
+      if (options.timing) {
+        compilation.stats.printTable(err);
+      }
+
+      if (event != null) {
+        event.end();
+        if (event.shouldCommit()) {
+          event.file = file;
+          event.errors = result.errors;
+          event.failed = result.failed;
+          event.commit();
+        }
+      }
     }
+    return result;
   }
 }
@@ -0,0 +1,124 @@
+import absyn.*;
+
+/* Counts the nodes of a tree for Stats: every Absyn object, lists and type names included. */
+public class NodeCounter implements AbsynVisitor {
+
+  private long count = 0;
+
+  public static long count( Absyn tree ) {
+    NodeCounter counter = new NodeCounter();
+    counter.add( tree );
+    return counter.count;
+  }
+
+  private void add( Absyn node ) {
+    if( node != null )
+      node.accept( this, 0 );
+  }
+
+  public void visit( ExpList expList, int level ) {
+    count++;
+    for( int i = 0; i < expList.size(); i++ )
+      add( expList.get( i ) );
+  }
+
+  public void visit( VarDecList varDecList, int level ) {
+    count++;
+    for( int i = 0; i < varDecList.size(); i++ )
+      add( varDecList.get( i ) );
+  }
+
+  public void visit( DecList decList, int level ) {
+    count++;
+    for( int i = 0; i < decList.size(); i++ )
+      add( decList.get( i ) );
+  }
+
+  public void visit( AssignExp exp, int level ) {
+    count++;
+    add( exp.lhs );
+    add( exp.rhs );
+  }
+
+  public void visit( IfExp exp, int level ) {
+    count++;
+    add( exp.test );
+    add( exp.thenpart );
+    add( exp.elsepart );
+  }
+
+  public void visit( IntExp exp, int level ) {
+    count++;
+  }
+
+  public void visit( BoolExp exp, int level ) {
+    count++;
+  }
+
+  public void visit( NilExp exp, int level ) {
+    count++;
+  }
+
+  public void visit( OpExp exp, int level ) {
+    count++;
+    add( exp.left );
+    add( exp.right );
+  }
+
+  public void visit( WhileExp exp, int level ) {
+    count++;
+    add( exp.test );
+    add( exp.body );
+  }
+
+  public void visit( VarExp exp, int level ) {
+    count++;
+    add( exp.variable );
+  }
+
+  public void visit( CallExp exp, int level ) {
+    count++;
+    add( exp.args );
+  }
+
+  public void visit( CompoundExp exp, int level ) {
+    count++;
+    add( exp.decs );
+    add( exp.exps );
+  }
+
+  public void visit( ReturnExp exp, int level ) {
+    count++;
+    add( exp.exp );
+  }
+
+  public void visit( ArrayDec dec, int level ) {
+    count++;
+    add( dec.typ );
+  }
+
+  public void visit( SimpleDec dec, int level ) {
+    count++;
+    add( dec.typ );
+  }
+
+  public void visit( FunctionDec dec, int level ) {
+    count++;
+    add( dec.result );
+    add( dec.parameters );
+    add( dec.body );
+  }
+
+  public void visit( NameTy type, int level ) {
+    count++;
+  }
+
+  public void visit( SimpleVar var, int level ) {
+    count++;
+  }
+
+  public void visit( IndexVar var, int level ) {
+    count++;
+    add( var.index );
+  }
+}
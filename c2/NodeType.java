@@ -4,12 +4,20 @@ import absyn.*;
 - The level (ex. 3)
 - The variable name (ex. "x")
 - The definition of when it was declared
-- The scope (ex. "fun1") */
+- The scope (ex. "fun1")
+The rest is filled in by SymbolTable.insert to link the node into the table */
 public class NodeType {
     public int level;
     public String variableName;
     public Dec def;
 
+    public int nameId;            // NameTable id the node is bound under
+    public int depth;             // Scope the node was bound in, 0 is the global scope
+    public NodeType shadowed;     // Binding of the same name in an outer scope that this one hides
+    public NodeType nextInScope;  // Binding made just before this one in the same scope
+    public boolean prototyped;    // For functions: a prototype was also seen after the definition
+    public int order;             // Index of the top-level declaration that made the binding
+
     public NodeType(int level, String variableName, Dec def) {
         this.level = level;
         this.variableName = variableName;
@@ -19,4 +27,4 @@ public class NodeType {
     public String getName(){
         return variableName;
     }
-}
\ No newline at end of file
+}
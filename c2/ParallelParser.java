@@ -0,0 +1,192 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import absyn.*;
+
+/* Parses a large file in pieces at the same time (-P). A C- program is a flat list of declarations,
+   so one quick pass over the characters that only follows comments and brace depth finds where the
+   top-level declarations end: at a ';' or a '}' with no braces left open. The file is cut at some of
+   those into a few pieces per thread, and it goes in three steps:
+   1. The pieces are lexed at the same time, each into a NameTable of its own, since interning
+      isn't thread safe.
+   2. Each piece's names are interned into the compilation's table, piece by piece in file order.
+      That hands out exactly the ids one lexer going through the whole file would have.
+   3. The pieces are parsed with DescentParser at the same time, their ID tokens renumbered first,
+      and their declarations are put back together in order. The names are only read from here on.
+   Tokens keep offsets into the whole Source, so every position in the tree is already the one it has
+   in the file, lines and columns included.
+   parse() gives up and returns null for anything out of the ordinary: a file too small to cut, braces
+   or a comment that don't close, a piece with a lexical error, or one DescentParser doesn't take.
+   Compilation then parses the whole file in one go with -r, so errors and recovery are never any
+   different. bench/ParallelParse checks the trees against parsing in one go and times both. */
+public class ParallelParser {
+
+    // Smallest piece worth a task of its own. Not final so bench/ParallelParse can cut small files too
+    static int pieceSize = 64 * 1024;
+
+    private final static int PIECES_PER_THREAD = 4; // Some pieces parse slower than others
+
+    private final Source source;
+    private final Compilation compilation;
+    private final int threads;
+
+    public int tokens = 0; // Tokens in every piece, once parse() has lexed them
+
+    public ParallelParser(Source source, Compilation compilation, int threads) {
+        this.source = source;
+        this.compilation = compilation;
+        this.threads = threads;
+    }
+
+    // The whole program, or null to parse it in one go instead. Nothing has been reported either way
+    public DecList parse() throws Exception {
+        final int[] cuts = cuts(source, threads * PIECES_PER_THREAD);
+        if (cuts == null) {
+            return null;
+        }
+        final int pieces = cuts.length - 1;
+        final Stats stats = compilation.stats;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, pieces));
+        try {
+            // 1. Lexing, each piece with a Compilation of its own for its names and any errors
+            final DirectLexer[] lexers = new DirectLexer[pieces];
+            final Compilation[] own = new Compilation[pieces];
+            List<Callable<Boolean>> lexing = new ArrayList<Callable<Boolean>>();
+            for (int p = 0; p < pieces; p++) {
+                final int piece = p;
+                lexing.add(() -> {
+                    long startCpu = Stats.cpuTime(), startAlloc = Stats.allocated();
+                    own[piece] = new Compilation();
+                    lexers[piece] = new DirectLexer(source, cuts[piece], cuts[piece + 1], own[piece]);
+                    try {
+                        while (lexers[piece].advance()) {
+                        }
+                    } catch (Error e) {
+                        return false; // A character no rule matches
+                    } finally {
+                        if (stats != null) {
+                            stats.add(Stats.PARSE, Stats.cpuTime() - startCpu, Stats.allocated() - startAlloc);
+                        }
+                    }
+                    return own[piece].diagnostics.size() == 0;
+                });
+            }
+            if (!all(pool.invokeAll(lexing))) {
+                return null;
+            }
+
+            // 2. The names, in the order the whole file has them
+            final NameTable names = compilation.names;
+            final int[][] ids = new int[pieces][];
+            for (int p = 0; p < pieces; p++) {
+                NameTable pieceNames = own[p].names;
+                ids[p] = new int[pieceNames.size()];
+                for (int id = 0; id < ids[p].length; id++) {
+                    ids[p][id] = id <= NameTable.EMPTY ? id : names.intern(pieceNames.name(id));
+                }
+                tokens += lexers[p].tokens.size();
+            }
+
+            // 3. Parsing
+            final DecList[] parts = new DecList[pieces];
+            List<Callable<Boolean>> parsing = new ArrayList<Callable<Boolean>>();
+            for (int p = 0; p < pieces; p++) {
+                final int piece = p;
+                parsing.add(() -> {
+                    long startCpu = Stats.cpuTime(), startAlloc = Stats.allocated();
+                    lexers[piece].tokens.renumber(ids[piece], names);
+                    parts[piece] = new DescentParser(lexers[piece], compilation).parse();
+                    if (stats != null) {
+                        stats.add(Stats.PARSE, Stats.cpuTime() - startCpu, Stats.allocated() - startAlloc);
+                    }
+                    return parts[piece] != null;
+                });
+            }
+            if (!all(pool.invokeAll(parsing))) {
+                return null;
+            }
+
+            DecList program = new DecList();
+            for (DecList part : parts) {
+                for (int i = 0; i < part.size(); i++) {
+                    program.add(part.get(i));
+                }
+            }
+            return program.trim();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Whether every task came back true, rethrowing anything one threw
+    private static boolean all(List<Future<Boolean>> results) throws Exception {
+        boolean all = true;
+        for (Future<Boolean> result : results) {
+            all &= result.get();
+        }
+        return all;
+    }
+
+    // Where to cut the source into about pieces pieces, right after top-level declarations: offsets
+    // from 0 up to its length, or null if it won't cut into more than one (too small, or a brace or a
+    // comment that doesn't close). Comments end at the first star and slash, as the lexers end them,
+    // and a piece always holds at least one declaration's end so it never has no tokens at all
+    static int[] cuts(Source source, int pieces) {
+        int length = source.length();
+        int target = Math.max(pieceSize, length / Math.max(1, pieces));
+        if (length < 2 * target) {
+            return null;
+        }
+        int[] cuts = new int[length / target + 2];
+        int count = 1; // cuts[0] is 0
+        int depth = 0;
+        int lastEnd = -1; // The last declaration's ';' or '}'
+        for (int i = 0; i < length; i++) {
+            char c = source.charAt(i);
+            if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                int star = i + 2;
+                while (star + 1 < length && (source.charAt(star) != '*' || source.charAt(star + 1) != '/')) {
+                    star++;
+                }
+                if (star + 1 >= length) {
+                    return null;
+                }
+                i = star + 1;
+                continue;
+            }
+            if (c == '{') {
+                depth++;
+                continue;
+            }
+            if (c == '}') {
+                if (--depth < 0) {
+                    return null;
+                }
+            } else if (c != ';') {
+                continue;
+            }
+            if (depth > 0) {
+                continue;
+            }
+            lastEnd = i;
+            if (i + 1 - cuts[count - 1] >= target && count < cuts.length - 1) {
+                cuts[count++] = i + 1;
+            }
+        }
+        if (depth != 0) {
+            return null;
+        }
+        if (cuts[count - 1] > lastEnd) {
+            count--; // Nothing but comments and blanks after it
+        }
+        if (count < 2) {
+            return null;
+        }
+        cuts[count++] = length;
+        return Arrays.copyOf(cuts, count);
+    }
+}
@@ -0,0 +1,154 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/* CUP writes the parser's production, action and reduce tables into parser.java as string literals
+   that lr_parser.unpackFromStrings decodes when the parser class is first used, in every JVM that
+   parses anything. Its format is built for javac's old limits, not for speed: two chars per length,
+   every value offset by 2, and the pieces glued back together in a StringBuffer read a char at a
+   time through synchronized charAt calls, all of it interpreted since it only runs once.
+   The Makefile runs this on parser.java right after CUP (ParserTables parser.java). It decodes each
+   table at build time and writes it back as one plain string, a char per value, that unpack() turns
+   into the table with one toCharArray and a copy loop. Nothing else in parser.java changes, and
+   bench/ParserStartup measures the time to the first parse either way. */
+public class ParserTables {
+
+    // A table packed by pack(): the number of rows, then each row's length followed by its values
+    public static short[][] unpack(String packed) {
+        char[] chars = packed.toCharArray();
+        short[][] table = new short[chars[0]][];
+        int at = 1;
+        for (int row = 0; row < table.length; row++) {
+            short[] values = table[row] = new short[chars[at++]];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = (short) chars[at++];
+            }
+        }
+        return table;
+    }
+
+    // ParserTables parser.java: rewrites CUP's tables in the file in place
+    public static void main(String argv[]) throws IOException {
+        if (argv.length != 1) {
+            System.err.println("Usage: java ParserTables parser.java");
+            System.exit(1);
+        }
+        Path file = Paths.get(argv[0]);
+        String text = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII);
+        // Not static fields: the parser uses this class at run time and shouldn't compile them
+        Matcher table = Pattern.compile("unpackFromStrings\\(new String\\[\\] \\{(.*?)\\}\\)", Pattern.DOTALL).matcher(text);
+        StringBuffer out = new StringBuffer();
+        int tables = 0;
+        while (table.find()) {
+            table.appendReplacement(out, Matcher.quoteReplacement("ParserTables.unpack(" + literal(pack(cupTable(table.group(1)))) + ")"));
+            tables++;
+        }
+        table.appendTail(out);
+        if (tables != 3) {
+            System.err.println(file + ": expected CUP's 3 tables, found " + tables);
+            System.exit(1);
+        }
+        Files.write(file, out.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // What unpackFromStrings would make of the string literals between the braces
+    static short[][] cupTable(String literals) {
+        StringBuilder chars = new StringBuilder();
+        Matcher literal = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"").matcher(literals);
+        while (literal.find()) {
+            unescape(literal.group(1), chars);
+        }
+        int at = 0;
+        short[][] table = new short[(chars.charAt(at) << 16) | chars.charAt(at + 1)][];
+        at += 2;
+        for (int row = 0; row < table.length; row++) {
+            table[row] = new short[(chars.charAt(at) << 16) | chars.charAt(at + 1)];
+            at += 2;
+            for (int i = 0; i < table[row].length; i++) {
+                table[row][i] = (short) (chars.charAt(at++) - 2);
+            }
+        }
+        return table;
+    }
+
+    static String pack(short[][] table) {
+        StringBuilder chars = new StringBuilder();
+        chars.append(length(table.length));
+        for (short[] row : table) {
+            chars.append(length(row.length));
+            for (short value : row) {
+                chars.append((char) value);
+            }
+        }
+        return chars.toString();
+    }
+
+    private static char length(int n) {
+        if (n > Character.MAX_VALUE) {
+            throw new IllegalArgumentException("table too large to pack: " + n);
+        }
+        return (char) n;
+    }
+
+    // The chars a Java string literal's body stands for
+    private static void unescape(String body, StringBuilder out) {
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            c = body.charAt(++i);
+            if (c >= '0' && c <= '7') {
+                int value = 0;
+                for (int digits = 0; digits < 3 && i < body.length() && body.charAt(i) >= '0' && body.charAt(i) <= '7'; digits++) {
+                    value = value * 8 + body.charAt(i++) - '0';
+                }
+                i--;
+                out.append((char) value);
+            } else if (c == 'u') {
+                while (body.charAt(i) == 'u') {
+                    i++;
+                }
+                out.append((char) Integer.parseInt(body.substring(i, i + 4), 16));
+                i += 3;
+            } else {
+                switch (c) {
+                    case 'b': out.append('\b'); break;
+                    case 't': out.append('\t'); break;
+                    case 'n': out.append('\n'); break;
+                    case 'f': out.append('\f'); break;
+                    case 'r': out.append('\r'); break;
+                    default: out.append(c);
+                }
+            }
+        }
+    }
+
+    // The chars as string literals joined with +, split into lines the way CUP splits its own. Only
+    // printable ASCII goes in as it is: \ooo below 256 and \\uXXXX above, never a \\u escape for a
+    // char javac would see as a line break before it reads the string
+    static String literal(String chars) {
+        StringBuilder out = new StringBuilder("\n    \"");
+        int onLine = 0;
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            if (c >= ' ' && c <= '~' && c != '"' && c != '\\') {
+                out.append(c);
+            } else if (c < 256) {
+                out.append('\\').append((char) ('0' + (c >> 6))).append((char) ('0' + ((c >> 3) & 7))).append((char) ('0' + (c & 7)));
+            } else {
+                out.append(String.format("\\u%04x", (int) c));
+            }
+            if (++onLine == 16 && i + 1 < chars.length()) {
+                out.append("\" +\n    \"");
+                onLine = 0;
+            }
+        }
+        return out.append('"').toString();
+    }
+}
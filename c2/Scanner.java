@@ -1,4 +1,5 @@
 import java.io.InputStreamReader;
+import java.io.PrintStream;
 import java_cup.runtime.Symbol;
 
 public class Scanner {
@@ -12,16 +13,69 @@ public class Scanner {
     return scanner.next_token();
   }
 
+  // Prints the tokens straight out of DirectLexer's Tokens buffer, no Symbol or String per token.
+  // The lines are collected and written a few thousand characters at a time
+  static void dump( DirectLexer lexer, PrintStream out ) {
+    Tokens tokens = lexer.tokens;
+    StringBuilder text = new StringBuilder( 16384 );
+    try {
+      while( lexer.advance() ) {
+        int i = tokens.size() - 1;
+        int kind = tokens.kind( i );
+        text.append( sym.terminalNames[kind] );
+        if( kind == sym.ID || kind == sym.NUM || kind == sym.TRUTH ) {
+          text.append( '(' );
+          tokens.appendText( i, text );
+          text.append( ')' );
+        }
+        text.append( System.lineSeparator() );
+        if( text.length() > 8192 ) {
+          out.print( text );
+          text.setLength( 0 );
+        }
+      }
+    } finally {
+      out.print( text ); // Also what came before input the lexer can't match
+    }
+  }
+
+  // The same from the JFlex Lexer's Symbols. A NUM is printed as its digits in the source, 007 and
+  // all, the same as dump() and not the int the lexer worked out
+  static void dumpJflex( Lexer lexer, Source source, PrintStream out ) throws java.io.IOException {
+    Scanner scanner = new Scanner( lexer );
+    Symbol tok = null;
+    while( (tok=scanner.getNextToken()) != null ) {
+      out.print(sym.terminalNames[tok.sym]);
+      if (tok.sym == sym.ID)
+         out.print("(" + lexer.names.name((Integer) tok.value) + ")");
+      else if (tok.sym == sym.NUM) {
+         int end = tok.left;
+         while( end < source.length() && source.charAt( end ) >= '0' && source.charAt( end ) <= '9' )
+           end++;
+         out.print("(" + source.text(tok.left, end - tok.left) + ")");
+      }
+      else if (tok.value != null)
+         out.print("(" + tok.value + ")");
+      out.println();
+    }
+  }
+
+  // Scanner [-jflex] < file: every token on its own line, with DirectLexer unless -jflex is given
   public static void main(String argv[]) {
     try {
-      Scanner scanner = new Scanner(new Lexer(new InputStreamReader(System.in)));
-      Symbol tok = null;
-      while( (tok=scanner.getNextToken()) != null ) {
-        System.out.print(sym.terminalNames[tok.sym]);
-        if (tok.value != null)
-           System.out.print("(" + tok.value + ")");
-        System.out.println();
+      // The diagnostics need the source to turn the offsets into lines and columns
+      Compilation compilation = new Compilation();
+      Source source = Source.read( new InputStreamReader( System.in ) );
+      compilation.diagnostics.setSource( source );
+      if( argv.length == 0 || !argv[0].equals( "-jflex" ) ) {
+        DirectLexer lexer = new DirectLexer( source, compilation );
+        dump( lexer, System.out );
+        compilation.diagnostics.flush( System.err );
+        return;
       }
+
+      dumpJflex( new Lexer( source.reader(), compilation ), source, System.out );
+      compilation.diagnostics.flush( System.err );
     }
     catch (Exception e) {
       System.out.println("Unexpected exception:");
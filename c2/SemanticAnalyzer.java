@@ -1,73 +1,133 @@
 /* Goal: Traverse the abstract syntax tree in post-order and find/report semantic errors. */
 
 import absyn.*;
-import java.util.HashMap;
+import java.io.*;
 import java.util.ArrayList;
-import java.util.Stack;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SemanticAnalyzer implements AbsynVisitor {
     // Declare variables
-    public Stack<HashMap<String, ArrayList<NodeType>>> tableStack; // Will change block by block
+    public SymbolTable symbols; // Every scope in one table keyed on NameTable ids, see SymbolTable
     final static int SPACES = 4;
-    public int currentReturnType = -1;
+    public Type currentReturnType = Type.ERROR;
     public VarDecList paramsToAdd = null;
     public String funcMsg = "";
+    public NameTable names; // Turns the ids used as keys back into names for messages
+    public PrintStream out; // The symbol table listing
+    public Diagnostics diagnostics; // Errors
+    private int decIndex = 0; // Which top-level declaration is being checked
+    private ArrayList<Integer> pendingBodies = null; // While collecting globals for checkParallel, the function bodies left to check
+    private Stats stats = null; // With -t, where checkParallel's workers add their CPU time and allocation
+    private boolean worker = false; // Checking bodies for checkParallel
+    private int symbolOps = 0; // Lookups and inserts seen while recording, to sample CompilerEvents.Symbol
+
+    // Stored as the binding of a name that was looked up and not found, so the failed lookup isn't repeated either
+    public final static Dec UNDECLARED = new SimpleDec(0, new NameTy(0, NameTy.NULL), null, NameTable.NONE);
 
     // Indent: creates spacing to organize display
+    // Printed in one go, the stream locks on every print and the workers in checkParallel print a lot
     private void indent( int level ) {
-        for( int i = 0; i < level * SPACES; i++ ) System.out.print( " " );
+        out.print( " ".repeat( level * SPACES ) );
     }
 
     // Constructor: Initialize the variables
-    public SemanticAnalyzer() {
-        // Store the tables for each stack, creates a linked table relationship
-        tableStack = new Stack<HashMap<String, ArrayList<NodeType>>>(); 
-        
-        // The first scope that the stack holds is the global scope
-        tableStack.push( new HashMap<String, ArrayList<NodeType>>());
+    // Everything it needs comes from the compile: the names, where errors go and where the listing goes
+    public SemanticAnalyzer(Compilation compilation) {
+        this.names = compilation.names;
+        this.diagnostics = compilation.diagnostics;
+        this.out = compilation.tableOut;
+        this.stats = compilation.stats;
+
+        // The table starts out in the global scope
+        symbols = new SymbolTable(names.size());
 
         // Declare that we have entered the global scope
-        System.out.println("Entering the global scope:");
+        out.println("Entering the global scope:");
+    }
+
+    // Worker for checkParallel: its own scopes over the finished global table
+    private SemanticAnalyzer(SemanticAnalyzer global) {
+        this.names = global.names;
+        this.diagnostics = new Diagnostics();
+        symbols = new SymbolTable(global.symbols, names.size());
+        worker = true;
     }
 
     /* -----------------------------  SYMBOL TABLE  ------------------------------------- */
-    // Insert: Adds a new node to the array of nodes in the topmost hashmap scope by using a key
+    // Insert: Binds a new node to the key in the current scope
     // Error Checker: Looks for redefined variables
-    public void insert(String key, NodeType node, int col, int row) {
-        if (tableStack.peek().get(key) != null) {
-            System.err.println("Semantic Error (col "+col+", row "+row+"): cannot insert redefined variable key '"+key+"'.");
-        } else {
-            ArrayList<NodeType> nodeList = new ArrayList<NodeType>();
-            nodeList.add(node);
-            tableStack.peek().put(key, nodeList);
+    public void insert(int key, NodeType node, int pos) {
+        node.order = decIndex;
+        boolean inserted = symbols.insert(key, node);
+        sample("insert", key, inserted);
+        if (!inserted) {
+            diagnostics.error(Diagnostics.REDEFINED, pos, names.name(key));
         }
     }
 
-    // Lookup: Looks for a key's array of nodes from the all of the currently available hashmap scopes in the stack
+    // Lookup: Finds the key's node in the closest scope that declares it
     // Error Checker: Looks for undefined variables
-    public ArrayList<NodeType> lookup(String key, int col, int row) {
-        // Loop through the entire stack (from top to bottom) and find the node list by using the key on every hashmap scope
-        for (int i = tableStack.size()-1; i >= 0; i--) {
-            if (tableStack.get(i).get(key) != null) {
-                return tableStack.get(i).get(key);
-            }
-        }
-        // If we cannot find it in the stack, it doesn't exist
-        System.err.println("Semantic Error (col "+col+", row "+row+"): cannot look up undefined variable key '"+key+"'.");
+    public NodeType lookup(int key, int pos) {
+        NodeType node = symbols.lookup(key);
+        sample("lookup", key, node != null);
+        if (node != null) {
+            return node;
+        }
+        // If no open scope has it, it doesn't exist
+        diagnostics.error(Diagnostics.UNDEFINED, pos, names.name(key));
         return null;
     }
 
-    // Delete: Deletes a key and an array of nodes from the topmost hashmap scope
+    // Delete: Removes a key's node from the current scope
     // Error Checker: Looks for undefined variables
-    // Notice: Currently there is no use for delete() as we'll just pop the entire hashmap scope off of the stack when exiting it
-    public void delete(String key, int col, int row) {
-        if (tableStack.peek().get(key) != null) {
-            tableStack.peek().remove(key);
-        } else {
-            System.err.println("Semantic Error (col "+col+", row "+row+"): cannot delete undefined variable key '"+key+"'.");
+    // Notice: Currently there is no use for delete() as leaving a scope already undoes everything bound in it
+    public void delete(int key, int pos) {
+        if (!symbols.delete(key)) {
+            diagnostics.error(Diagnostics.DELETE_UNDEFINED, pos, names.name(key));
         }
     }
 
+    // Records one in CompilerEvents.SYMBOL_SAMPLE lookups and inserts while a flight recording is on.
+    // Otherwise the event is never allocated and this is just the recording check
+    private void sample(String operation, int key, boolean found) {
+        if (!CompilerEvents.recording()) {
+            return;
+        }
+        CompilerEvents.Symbol event = new CompilerEvents.Symbol();
+        if (event.isEnabled() && ++symbolOps % CompilerEvents.SYMBOL_SAMPLE == 0) {
+            event.operation = operation;
+            event.name = names.name(key);
+            event.depth = symbols.depth();
+            event.found = found;
+            event.commit();
+        }
+    }
+
+    /* -----------------------------  NAME BINDING  ------------------------------------- */
+    // Resolve: Finds the declaration a variable use refers to the first time it's needed and keeps it in exp.dtype.
+    // Every later check reads that link instead of searching the symbol table again, so each use is looked up once
+    public Dec resolve(VarExp exp) {
+        if (exp.dtype == null) {
+            Var var = exp.variable;
+            NodeType node = lookup(var.getNameId(), var.pos);
+            exp.dtype = node != null ? node.def : UNDECLARED;
+        }
+        return exp.dtype;
+    }
+
+    // Functions can only be declared in the global scope, so calls skip anything local with the same name.
+    // A missing function is reported by visit(CallExp), so there's no lookup error here
+    public Dec resolve(CallExp exp) {
+        if (exp.dtype == null) {
+            NodeType node = symbols.lookupGlobal(exp.funId);
+            sample("lookupGlobal", exp.funId, node != null);
+            exp.dtype = node != null ? node.def : UNDECLARED;
+        }
+        return exp.dtype;
+    }
+
     /* -----------------------------  TYPE CHECKER  ------------------------------------- */
     /* 
       Given the current scopes table of declarations, use get to get the stored variable and verify it's got the same type as the passed type
@@ -75,25 +135,17 @@ public class SemanticAnalyzer implements AbsynVisitor {
       rule( from the lecture ) where we favor the closest scopes declaration. Assume a variable is being passed
       returns 1 upon success, -1 on type mismatch, 0 on not found.
     */
-    public int typeChecker(int level, String varName, int type, int row, int col) {
-        // Declare variables
-        ArrayList<NodeType> tempList;
-        Dec tempDec;
-
-        // Loop through the stack from top(current) to bottom(global) 
-        tempList = lookup(varName, col + 1, row + 1);
-
-        // If there's an instance, check if one of the node types match the given type
-        if (tempList != null) {
-            for(NodeType tempNode: tempList) {
-                tempDec = tempNode.def;
-
-                // Type match where 1 = success and -1 = mismatch 
-                if (tempDec.getType() == type) {
-                    return 1;
-                } else {
-                    return -1;
-                }
+    public int typeChecker(int level, VarExp var, Type type, int pos) {
+        // The closest declaration, from the current scope out to the global one
+        Dec tempDec = resolve(var);
+
+        // If there's an instance, check if its type matches the given type
+        if (tempDec != UNDECLARED) {
+            // Type match where 1 = success and -1 = mismatch 
+            if (typeOf(var) == type) {
+                return 1;
+            } else {
+                return -1;
             }
         }
 
@@ -103,37 +155,27 @@ public class SemanticAnalyzer implements AbsynVisitor {
 
     // Function that checks if a varriable was defined in the current scope or above. used to determine if a VARIABLE was declared before
     // When we find a declaration, we can stop and return 1 for a success, 0 for failure
-    public int wasDefined(String name) {
-        // Declare Variable
-        ArrayList<NodeType> tempList;
-
-        // Go through all of the scopes, we can reference declarations from higher scopes
-        tempList = lookup(name, 0, 0);
-
-        // 1 = not null, declaration found
-        if (tempList != null) {
+    public int wasDefined(VarExp var) {
+        // 1 = declaration found, in this scope or a higher one
+        if (resolve(var) != UNDECLARED) {
             return 1;
         }
         
-        // 0 = null, no declaration found
+        // 0 = no declaration found
         return 0;
     }
     
-    // Loop through the node list and find if a body was previously defined
-    public int funcWasDefined(ArrayList<NodeType> storedNodes, NodeType curNode, int row, int col) {
+    // Check the stored node to find if a body was previously defined
+    public int funcWasDefined(NodeType storedNode, NodeType curNode, int pos) {
         // Nothing was found 
-        if (storedNodes == null) {
+        if (storedNode == null) {
             return 0;
         }
 
-        FunctionDec tempFunc;
-        for( NodeType tempNode: storedNodes){
-            tempFunc = (FunctionDec)tempNode.def;
-
-            // If the body is not a NilExp, means it was defined, return 1 as a "found"
-            if(tempFunc.body.isNilExp()!=1){
-                return 1;
-            }
+        // If the body is not a NilExp, means it was defined, return 1 as a "found"
+        FunctionDec tempFunc = (FunctionDec)storedNode.def;
+        if(tempFunc.body.isNilExp()!=1){
+            return 1;
         }
 
         // Nothing was found
@@ -141,86 +183,197 @@ public class SemanticAnalyzer implements AbsynVisitor {
     }
 
 
-    //any exp types, this will get its datat type
-    public int getExpType(Exp exp){
-
-        ArrayList<NodeType> tempVarList;
-        String varName;
-
-        if(exp==null){
-            return -1;
-        }
-
-
-        if(exp instanceof VarExp){//means we have a varriable being passed, is probably of type simpleVar
-            varName = ((VarExp)exp).variable.getName();
-            //find previous instance, look at the prev dec and get the type, loop through all scopes
-            if(!"".equals(varName)){
-            
-                tempVarList = lookup(varName, exp.row, exp.col);
-                return tempVarList.get(0).def.getType();//get the type value of the time it was declared
-
-
+    // TypeOf: gives an expression its type, working out its operands' types first (post-order) and keeping
+    // the result in exp.type. Every node is typed once no matter how many checks ask for it
+    public Type typeOf(Exp exp) {
+        if (exp == null) {
+            return Type.ERROR;
+        }
+        if (exp.type != null) {
+            return exp.type;
+        }
+
+        Type type;
+        if (exp instanceof IntExp) {
+            type = Type.INT;
+        } else if (exp instanceof BoolExp) {
+            type = Type.BOOL;
+        } else if (exp instanceof VarExp) { // the declared type, or the element type when indexing an array
+            VarExp varExp = (VarExp) exp;
+            Dec dec = resolve(varExp);
+            type = dec == UNDECLARED ? Type.ERROR : Type.of(dec);
+            if (varExp.variable instanceof IndexVar) {
+                typeOf(((IndexVar) varExp.variable).index);
+                if (type.isArray()) {
+                    type = type.element;
+                }
             }
-            else{//not found, simply default
-                return exp.getType();
+        } else if (exp instanceof CallExp) { // the declared return type, prototype or not
+            CallExp callExp = (CallExp) exp;
+            for (int i = 0; callExp.args != null && i < callExp.args.size(); i++) {
+                typeOf(callExp.args.get(i));
             }
-        }
-        else if(exp instanceof CallExp){//if a function call was detected, find its type
+            type = resolve(callExp) instanceof FunctionDec ? Type.of(callExp.dtype) : Type.ERROR;
+        } else if (exp instanceof OpExp) { // arithmetic gives an int, everything else a bool
+            OpExp opExp = (OpExp) exp;
+            typeOf(opExp.left);
+            typeOf(opExp.right);
+            type = opExp.getType() == NameTy.INT ? Type.INT : Type.BOOL;
+        } else if (exp instanceof AssignExp) { // an assignment has the type of what it assigns to
+            AssignExp assignExp = (AssignExp) exp;
+            typeOf(assignExp.rhs);
+            type = typeOf(assignExp.lhs);
+        } else { // NilExp (nothing) and statements
+            type = Type.VOID;
+        }
+
+        exp.type = type;
+        return type;
+    }
 
-            varName = ((CallExp)exp).fun;
 
-            tempVarList = lookup(varName, exp.row, exp.col);
-            FunctionDec tempFunDec = (FunctionDec)tempVarList.get(0).def;//prototype or not will still have the type 
-            return tempFunDec.result.typeVal;//return the declared return type
-        }
-        else if(exp instanceof OpExp){//expression passed is an operator expression
 
-            OpExp tempExp = (OpExp)exp;
-            //if of the numerical type return 0
-            if (tempExp.op == OpExp.PLUS || tempExp.op == OpExp.MINUS || tempExp.op == OpExp.TIMES || tempExp.op == OpExp.OVER) {
-                return 0;
-            }
-            else if (tempExp.op == OpExp.EQ || tempExp.op == OpExp.LT || tempExp.op == OpExp.GT || tempExp.op == OpExp.UMINUS || tempExp.op == OpExp.AND || tempExp.op == OpExp.OR || tempExp.op == OpExp.APPROX){//will yield a boolean type
-                return 3;
+    /* -----------------------------  PARALLEL CHECKING  ------------------------------------- */
+    /*
+      Everything one function can see of another lives in the global scope, so the program is checked in two steps:
+      1. The top-level declarations are visited in order as usual, except that function bodies are only queued.
+         This binds every global variable, prototype and function in the global table.
+      2. The queued bodies are checked by a pool of workers, each with its own scopes over the (now read only)
+         global table. A body only sees the globals declared before it, the same as when checking in order.
+      Each top-level declaration's listing and errors are kept apart and copied out in source order at the end, so
+      they come out exactly as they would from result.accept(analyzer, level). The error limit is applied while
+      copying, so it stops at the same error too, but every body has been checked by then.
+    */
+    public void checkParallel(DecList program, int level, int threads) throws Exception {
+        PrintStream realOut = out;
+        Diagnostics realDiagnostics = diagnostics;
+        int count = program.size();
+
+        // 1. Globals and prototypes, queueing the bodies. Where each declaration's output ends is kept for the merge
+        Buffer globalOut = new Buffer();
+        Diagnostics globalDiagnostics = new Diagnostics();
+        int[] outEnd = new int[count], errEnd = new int[count];
+        out = globalOut.stream;
+        diagnostics = globalDiagnostics;
+        pendingBodies = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++) {
+            decIndex = i;
+            program.get(i).accept(this, level);
+            outEnd[i] = globalOut.mark();
+            errEnd[i] = globalDiagnostics.size();
+        }
+        final ArrayList<Integer> bodies = pendingBodies;
+        pendingBodies = null;
+        out = realOut;
+        diagnostics = realDiagnostics;
+
+        // 2. The bodies, each worker taking the next one left until there are none. A worker keeps everything
+        // in its own buffer and notes which part belongs to which body
+        int bodyCount = bodies.size();
+        final AtomicInteger next = new AtomicInteger();
+        final int[] bodyWorker = new int[bodyCount];
+        final int[] bodyOut = new int[bodyCount * 2], bodyErr = new int[bodyCount * 2]; // start and end of each body's part
+        final int workerCount = Math.max(1, Math.min(threads, bodyCount));
+        final Buffer[] workerOut = new Buffer[workerCount];
+        final Diagnostics[] workerErr = new Diagnostics[workerCount];
+        final SymbolTable[] workerSymbols = new SymbolTable[workerCount];
+        List<Callable<Void>> workers = new ArrayList<Callable<Void>>();
+        for (int t = 0; t < workerCount; t++) {
+            final int w = t;
+            workers.add(() -> {
+                long startCpu = Stats.cpuTime(), startAlloc = Stats.allocated();
+                SemanticAnalyzer worker = new SemanticAnalyzer(this);
+                workerSymbols[w] = worker.symbols;
+                workerOut[w] = new Buffer();
+                workerErr[w] = worker.diagnostics;
+                worker.out = workerOut[w].stream;
+                int j;
+                while ((j = next.getAndIncrement()) < bodyCount) {
+                    int i = bodies.get(j);
+                    bodyWorker[j] = w;
+                    bodyOut[2 * j] = workerOut[w].mark();
+                    bodyErr[2 * j] = workerErr[w].size();
+                    worker.decIndex = i;
+                    worker.symbols.setOrder(i);
+                    worker.checkBody((FunctionDec) program.get(i), level);
+                    bodyOut[2 * j + 1] = workerOut[w].mark();
+                    bodyErr[2 * j + 1] = workerErr[w].size();
+                }
+                if (stats != null) {
+                    stats.add(Stats.CHECK, Stats.cpuTime() - startCpu, Stats.allocated() - startAlloc);
+                }
+                return null;
+            });
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(workerCount);
+        try {
+            for (Future<Void> done : pool.invokeAll(workers)) {
+                done.get(); // Rethrows anything a worker threw
             }
-            else{
-                return -1;//unknown type, return -1
+        } finally {
+            pool.shutdown();
+        }
+        for (SymbolTable table : workerSymbols) {
+            symbols.scopesEntered += table.scopesEntered;
+            symbols.lookups += table.lookups;
+        }
+
+        // Everything in source order: each declaration's part from step 1, then its body if it has one
+        byte[] globalOutBytes = globalOut.bytes.toByteArray();
+        byte[][] workerOutBytes = new byte[workerCount][];
+        for (int w = 0; w < workerCount; w++) {
+            workerOutBytes[w] = workerOut[w].bytes.toByteArray();
+        }
+        try {
+            int j = 0;
+            for (int i = 0; i < count; i++) {
+                out.write(globalOutBytes, i == 0 ? 0 : outEnd[i - 1], outEnd[i] - (i == 0 ? 0 : outEnd[i - 1]));
+                diagnostics.copy(globalDiagnostics, i == 0 ? 0 : errEnd[i - 1], errEnd[i]);
+                if (j < bodyCount && bodies.get(j) == i) {
+                    int w = bodyWorker[j];
+                    out.write(workerOutBytes[w], bodyOut[2 * j], bodyOut[2 * j + 1] - bodyOut[2 * j]);
+                    diagnostics.copy(workerErr[w], bodyErr[2 * j], bodyErr[2 * j + 1]);
+                    j++;
+                }
             }
-
-
-        }
-        else{
-            return  exp.getType();
+        } finally {
+            out.flush();
         }
     }
 
+    // Somewhere to print to in memory while checking in parallel
+    private static class Buffer {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream stream = new PrintStream(bytes);
 
+        // How much has been printed so far
+        int mark() {
+            stream.flush();
+            return bytes.size();
+        }
+    }
 
     /* ----------------------  VISIT FUNCTIONS FOR TREE TRAVERSAL  ---------------------- */
     // Loop through expressions and 'visit' each one
     public void visit(ExpList exp, int level) {
-        while(exp != null) {
-            exp.head.accept(this, level);
-            exp = exp.tail;
+        for (int i = 0; i < exp.size(); i++) {
+            exp.get(i).accept(this, level);
         }
     }
 
     // Check if the right hand sides type matches the left hand side
     public void visit(AssignExp exp, int level) {
-        // Current scopes table, peek to get the most recent scope(current one)
-        HashMap<String, ArrayList<NodeType>> curTable = tableStack.peek();
         Var leftSide = exp.lhs.variable; // Should always be simple var as left hand will be a variable
         Exp rightSide = exp.rhs;
             
         // Check if the types for the right side and left side match. 1 for match, -1 for mismatch, 0 for lhs wasn't declared
-        int res = typeChecker(level, leftSide.getName() , rightSide.getType(), exp.row, exp.col);
+        int res = typeChecker(level, exp.lhs, typeOf(rightSide), exp.pos);
 
         // Only print an error check 
         if (res == -1) {
-            System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) + " Semantic Error: In Assignment operator left and right hand side types differ\n");
+            diagnostics.error(Diagnostics.ASSIGN_MISMATCH, exp.pos);
         } else if (res == 0) {
-            System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) + " Semantic Error: Assign operators left hand side variable was never declared\n");
+            diagnostics.error(Diagnostics.ASSIGN_UNDECLARED, exp.pos);
         }
 
         //handle the left and right hand expressions seperately
@@ -232,8 +385,8 @@ public class SemanticAnalyzer implements AbsynVisitor {
     public void visit(IfExp exp, int level) {
 
           //check if the test is a boolean expression
-        if(getExpType(exp.test)!=3){
-            System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) + " Semantic Error: if Conditional statement is not of the boolean type\n");
+        if(typeOf(exp.test) != Type.BOOL){
+            diagnostics.error(Diagnostics.IF_NOT_BOOL, exp.pos);
         }
 
         // Conditional statement
@@ -253,22 +406,22 @@ public class SemanticAnalyzer implements AbsynVisitor {
     // Check if its a logic or math operator and type check accordingly
     public void visit(OpExp exp, int level) {
 
-        //System.err.println("WHAT VAREXPGET GOT:" + getExpType(exp.left));
+        //System.err.println("WHAT VAREXPGET GOT:" + typeOf(exp.left));
 
         // operators that require numbers
         if (exp.op == OpExp.PLUS || exp.op == OpExp.MINUS || exp.op == OpExp.TIMES || exp.op == OpExp.OVER || exp.op == OpExp.EQ || exp.op == OpExp.LT || exp.op == OpExp.GT) {
             // Only type check if both exist
             if (exp.left != null && exp.right != null) {
                 // Both must be of type int, if not throw an error
-                if (getExpType(exp.left) != 0) {
-                    System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) + " Semantic Error: incorrect type for lefthand, not of type INT\n");
+                if (typeOf(exp.left) != Type.INT) {
+                    diagnostics.error(Diagnostics.LEFT_NOT_INT, exp.pos);
                 }
-                if (getExpType(exp.right)!= 0) {
-                    System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) + " Semantic Error: incorrect type for righthand, not of type INT\n");
+                if (typeOf(exp.right) != Type.INT) {
+                    diagnostics.error(Diagnostics.RIGHT_NOT_INT, exp.pos);
                 }
             } else {
                 // They must both exist for all of these operators, so if even one doesn't exist throw and error
-                System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) + " Syntax Error: Missing right/left values in mathmatical operator\n");
+                diagnostics.error(Diagnostics.MISSING_OPERAND, exp.pos);
             }
         } else if (exp.op == OpExp.UMINUS || exp.op == OpExp.AND || exp.op == OpExp.OR || exp.op == OpExp.APPROX) {//operators that require boolean values
             // Only type check if both exist
@@ -276,18 +429,18 @@ public class SemanticAnalyzer implements AbsynVisitor {
         
             if (exp.left != null && exp.right != null) {
                 // Both must be of type bool, if not throw an error
-                if ( getExpType(exp.left)!= 3) {
-                    System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) + " Semantic Error: incorrect type for lefthand, not of type Boolean\n");
+                if (typeOf(exp.left) != Type.BOOL) {
+                    diagnostics.error(Diagnostics.LEFT_NOT_BOOL, exp.pos);
                 }
-                if (getExpType(exp.right) != 3) {
-                    System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) + " Semantic Error: incorrect type for righthand, not of type Boolean\n");
+                if (typeOf(exp.right) != Type.BOOL) {
+                    diagnostics.error(Diagnostics.RIGHT_NOT_BOOL, exp.pos);
                 }
             } else {
                 // They must both exist for all of these operators, so if even one doesn't exist throw and error
-                System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) + " Syntax Error: Missing right/left values in mathmatical operator\n");
+                diagnostics.error(Diagnostics.MISSING_OPERAND, exp.pos);
             }
         } else {
-            System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) + " Syntax Error: Unrecognized operator\n");
+            diagnostics.error(Diagnostics.BAD_OPERATOR, exp.pos);
         }
     }
 
@@ -295,8 +448,8 @@ public class SemanticAnalyzer implements AbsynVisitor {
     public void visit(WhileExp exp, int level) {
 
         //check if the test is a boolean expression
-        if(getExpType(exp.test)!=3){
-            System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) + " Semantic Error: While Conditional statement is not of the boolean type\n");
+        if(typeOf(exp.test) != Type.BOOL){
+            diagnostics.error(Diagnostics.WHILE_NOT_BOOL, exp.pos);
         }
 
         // If test expression exists, preform semantic analysis
@@ -308,15 +461,12 @@ public class SemanticAnalyzer implements AbsynVisitor {
     }
     
     public void visit(DecList decList, int level) {
-        // Print out the decs stored
-        DecList tempDecList = decList;
-  
-        // Make sure it's not empty
-        if (tempDecList.head != null) {
-            while(tempDecList != null) {
-                tempDecList.head.accept(this, level);
-                tempDecList = tempDecList.tail;
+        // Visit the decs stored, an empty list has nothing to visit
+        for (int i = 0; i < decList.size(); i++) {
+            if (symbols.depth() == 0) {
+                decIndex = i;
             }
+            decList.get(i).accept(this, level);
         }
     }
 
@@ -329,26 +479,26 @@ public class SemanticAnalyzer implements AbsynVisitor {
             tempType = "int";
         } else if (arrDec.typ.typeVal == 1) {
             tempType = "void";
-            System.err.println("Error in line " + (arrDec.row + 1) + ", column " + (arrDec.col + 1) + " Syntax Error: Invalid array type detected: void\n");
+            diagnostics.error(Diagnostics.ARRAY_VOID, arrDec.pos);
             return;
         } else if (arrDec.typ.typeVal == 2) {
             tempType = "null";
-            System.err.println("Error in line " + (arrDec.row + 1) + ", column " + (arrDec.col + 1) + " Syntax Error: Invalid array type detected: null\n");
+            diagnostics.error(Diagnostics.ARRAY_NULL, arrDec.pos);
             return;
         } else if (arrDec.typ.typeVal == 3) {
             tempType = "bool";
         } else {
-            System.err.println("Error in line " + (arrDec.row + 1) + ", column " + (arrDec.col + 1) + " Syntax Error: Invalid type detected\n");
+            diagnostics.error(Diagnostics.BAD_TYPE, arrDec.pos);
             return;
         }
 
         indent(level);
 
         // Print out declaration for symbol table
-        System.out.println(arrDec.name + ": " + tempType);
+        out.println(arrDec.name + ": " + tempType);
 
         // Insert a new node for the variable to keep track of the level, varriable name, type, and scope
-        insert(arrDec.name, new NodeType(level, arrDec.name, arrDec), arrDec.col + 1, arrDec.row + 1);
+        insert(arrDec.nameId, new NodeType(level, arrDec.name, arrDec), arrDec.pos);
     }
 
     public void visit(BoolExp exp , int level) {
@@ -358,44 +508,43 @@ public class SemanticAnalyzer implements AbsynVisitor {
 
     public void visit(CallExp exp, int level) {
         
-        // CHANGE 1: Use FIRST ELEMENT (global scope) instead of lastElement()/0 index table
-        HashMap<String, ArrayList<NodeType>> tempTable = tableStack.get(0);
-        ArrayList<NodeType> tempArr = tempTable.get(exp.fun);
+        // CHANGE 1: Functions only live in the global scope, resolve() skips anything local with the same name
+        Dec tempArr = resolve(exp);
         FunctionDec prevDef = null;
     
         // CHANGE 2: Simplify prototype/definition check
-        if (tempArr != null && !tempArr.isEmpty()) {
-            // Accept either prototype or definition
-            for(NodeType tempNode: tempArr) {
-                prevDef = (FunctionDec) tempNode.def;
-                if(prevDef.body.isNilExp()!=1){ //if the body isn't a null exp we found instance
-                    break;
-                }
-                else{ //was an empty body, most likely prototype, reset it to null
-                    prevDef = null;
-                }
+        if (tempArr != UNDECLARED) {
+            // A definition always replaces the prototype, so the bound declaration is the definition if there is one
+            // A variable with that name is no function either
+            if (!(tempArr instanceof FunctionDec)) {
+                diagnostics.error(Diagnostics.FUNC_UNDEFINED, exp.pos, exp.fun);
+                return;
+            }
+            prevDef = (FunctionDec) tempArr;
+            if(prevDef.body.isNilExp()==1){ //was an empty body, most likely prototype, reset it to null
+                prevDef = null;
             }
 
-            //went through all matching names in scope, if prevDef is still null never found so throw error and return
+            //if prevDef is still null it was never defined so throw error and return
             if(prevDef == null){
-                System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) 
-                            + ": Function '" + exp.fun + "' was never defined");
+                diagnostics.error(Diagnostics.FUNC_UNDEFINED, exp.pos, exp.fun);
                 return;
             }
 
 
         } else {
             // CHANGE 3: Consistent error message formatting
-            System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) 
-                            + ": Function '" + exp.fun + "' was never defined");
+            diagnostics.error(Diagnostics.FUNC_UNDEFINED, exp.pos, exp.fun);
             return;
         }
     
         // CHANGE 4: Remove redundant null check (tempArr guaranteed non-null here)
         ExpList tempArgList = exp.args;
         VarDecList tempParamList = prevDef.parameters;
-        int tempArgType = -1;
-        int tempParamType = -1;
+        int argCount = tempArgList.size();
+        int paramCount = tempParamList == null ? 0 : tempParamList.size();
+        Type tempArgType = Type.ERROR;
+        Type tempParamType = Type.ERROR;
     
 
         /* 
@@ -409,56 +558,32 @@ public class SemanticAnalyzer implements AbsynVisitor {
        
 
         // Parameter/argument matching logic remains unchanged
-        if ( tempArgList.head.isNilExp() == 1 && tempParamList == null) { //expects void, no need to continue on
+        if ( tempArgList.get(0).isNilExp() == 1 && tempParamList == null) { //expects void, no need to continue on
             return;
-        } else if (tempArgList.head.isNilExp() == 1 && tempParamList!= null) { 
-            System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) 
-                            + ": Function does not expect void arguments");
+        } else if (tempArgList.get(0).isNilExp() == 1 && tempParamList!= null) { 
+            diagnostics.error(Diagnostics.VOID_ARGS, exp.pos);
             return;   
-        } else if (tempArgList.head.isNilExp() != 1 && tempParamList == null) { //arguments weren't empty but expected nothing
-            System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) 
-                            + ": Function expected void arguments but got parameters");
+        } else if (tempArgList.get(0).isNilExp() != 1 && tempParamList == null) { //arguments weren't empty but expected nothing
+            diagnostics.error(Diagnostics.EXPECTED_VOID_ARGS, exp.pos);
             return; 
         } else {
-            while(tempArgList != null && tempParamList != null) {
-                Dec tempVar = (Dec) tempParamList.head; 
-                Exp tempExp =  (Exp) tempArgList.head;
+            for (int i = 0; i < argCount && i < paramCount; i++) {
+                Dec tempVar = tempParamList.get(i); 
+                Exp tempExp = tempArgList.get(i);
     
-                if(tempArgList.head instanceof VarExp){//means we have a varriable being passed, is probably of type simpleVar
-                    String varName = ((VarExp)tempArgList.head).variable.getName();
-                    //find previous instance, look at the prev dec and get the type, loop through all scopes
-                    if(!"".equals(varName)){
-                       
-                        ArrayList<NodeType> tempVarList;
-                        tempVarList = lookup(varName, exp.row, exp.col);
-                        tempArgType = tempVarList.get(0).def.getType();//get the type value of the time it was declared
-
-
-                    }
-                    else{
-                        tempArgType = tempExp.getType();
-                    }
-                }
-                else{
-                    tempArgType = tempExp.getType();
-                }
-
-                
-                tempParamType = tempVar.getType();
+                // a variable has the type it was declared with, arrays included
+                tempArgType = typeOf(tempExp);
+                tempParamType = Type.of(tempVar);
 
                 /* 
-                System.err.println("Name of variable: " + tempVar.getName());
-                System.err.println("tempArgType : " + tempArgType);
-                System.err.println("tempParamType: " + tempParamType);
+                err.println("Name of variable: " + tempVar.getName());
+                err.println("tempArgType : " + tempArgType);
+                err.println("tempParamType: " + tempParamType);
                 */
     
                 if(tempArgType != tempParamType) {
-                    System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) + " Semantic Error: Function call contains invalid types");
-                    System.err.println(tempVar.getName() +" expected a different type\n");
+                    diagnostics.error(Diagnostics.ARG_TYPE, exp.pos, tempVar.getName());
                 }
-    
-                tempArgList = tempArgList.tail;
-                tempParamList = tempParamList.tail;
             }
         }
     }
@@ -466,39 +591,38 @@ public class SemanticAnalyzer implements AbsynVisitor {
     
     // Only time scope level changes
     public void visit(CompoundExp exp, int level) {
-        // New scope, go down a level and create a new symbol table for the new scope
-        tableStack.push(new HashMap<String, ArrayList<NodeType>>());
+        // New scope, go down a level and open a new scope in the symbol table
+        symbols.enterScope();
 
         // Print for the symbol table
         indent(level);
-        System.out.println("Entering a new block " + funcMsg+ ":");
+        out.println("Entering a new block " + funcMsg+ ":");
         funcMsg = "";//reset it after
         // Scope level has changed, go deeper
         level++;
 
         //handle possible function parameter declarations, need to reference it in the scope
-        while (paramsToAdd != null) {
-            paramsToAdd.head.accept(this, level + 1);
-            paramsToAdd = paramsToAdd.tail;
+        if (paramsToAdd != null) {
+            for (int i = 0; i < paramsToAdd.size(); i++) {
+                paramsToAdd.get(i).accept(this, level + 1);
+            }
         }
 
         paramsToAdd = null;//reset it for the next possible function dec
 
         /*****Deal with the declarations/expressions*****/
         VarDecList tempVarDecList = exp.decs;
-        while(tempVarDecList != null) {
-            tempVarDecList.head.accept(this, level);
-            tempVarDecList  = tempVarDecList.tail;
+        for (int i = 0; i < tempVarDecList.size(); i++) {
+            tempVarDecList.get(i).accept(this, level);
         }
 
         ExpList tempList = exp.exps;
-        while(tempList != null) {
-            tempList.head.accept(this, level);
-            tempList = tempList.tail;
+        for (int i = 0; i < tempList.size(); i++) {
+            tempList.get(i).accept(this, level);
         }
 
-        // Finished with the current scope, pop it from the stack and move back up to the previous scope and level
-        tableStack.pop();
+        // Finished with the current scope, undo its declarations and move back up to the previous scope and level
+        symbols.exitScope();
         level--;
     }
 
@@ -506,84 +630,98 @@ public class SemanticAnalyzer implements AbsynVisitor {
 
      
     public void visit(FunctionDec FunDec, int level) {
-        if (tableStack.size() != 1) {
-            System.err.println("Error in line " + (FunDec.row + 1) + ", column " + (FunDec.col + 1) + " Semantic Error: Function not defined in the global scope\n");
+        if (symbols.depth() != 0) {
+            diagnostics.error(Diagnostics.FUNC_NOT_GLOBAL, FunDec.pos);
             return;
         }
     
         NodeType tempNode = new NodeType(level, FunDec.func, FunDec);
-        ArrayList<NodeType> tempArr = tableStack.peek().get(FunDec.func);
+        NodeType tempArr = symbols.lookupLocal(FunDec.funcId);
+
+        // A global variable already has the name
+        if (tempArr != null && !(tempArr.def instanceof FunctionDec)) {
+            diagnostics.error(Diagnostics.REDEFINED, FunDec.pos, FunDec.func);
+            return;
+        }
     
 
         if (FunDec.body.isNilExp() != 1) { // Function definition
-            int prevReturnType = currentReturnType;
-            currentReturnType = FunDec.result.typeVal;//we use this to check if return exp matches
-    
-            funcMsg = "for function " + FunDec.func;//passes this to compoundExp
-    
             if (tempArr != null) {
-                boolean hasPrototype = false;
-                for (NodeType node : tempArr) {
-                    FunctionDec existingFunc = (FunctionDec) node.def;
-                    if (existingFunc.body.isNilExp() == 1) { // Check if existing entry is a prototype
-                        hasPrototype = true;
-                        break;
-                    }
-                }
+                FunctionDec existingFunc = (FunctionDec) tempArr.def;
+                // Check if existing entry is a prototype, or a definition that a prototype followed
+                boolean hasPrototype = existingFunc.body.isNilExp() == 1 || tempArr.prototyped;
                 if (hasPrototype) {
-                    // Replace prototype with definition
-                    tempArr.clear();
-                    tempArr.add(tempNode);
+                    // Replace prototype with definition, bodies before this one still see the prototype
+                    tempNode.order = decIndex;
+                    symbols.replace(FunDec.funcId, tempNode);
                 } else {
-                    System.err.println("Error in line " + (FunDec.row + 1) + ", column " + (FunDec.col + 1) + " Semantic Error: Function '" + FunDec.func + "' was already defined\n");
+                    diagnostics.error(Diagnostics.FUNC_REDEFINED, FunDec.pos, FunDec.func);
                     return;
                 }
             } else {
-                insert(FunDec.func, tempNode, FunDec.col + 1, FunDec.row + 1);
+                insert(FunDec.funcId, tempNode, FunDec.pos);
             }
     
-            // Add parameters and process it in the body
-            paramsToAdd = FunDec.parameters; //we are gonna handle this in the boddy
-           /*  while (params != null) {
-                params.head.accept(this, level + 1);
-                params = params.tail;
-            }
-            */
-
-            if (FunDec.body != null) {
-                FunDec.body.accept(this, level);
+            // checkParallel checks the body later
+            if (pendingBodies != null) {
+                pendingBodies.add(decIndex);
+            } else {
+                checkBody(FunDec, level);
             }
-    
-            indent(level + 1);
-            System.out.println("Exiting function " + FunDec.func + " scope");
-            currentReturnType = prevReturnType;
         } else { // Function prototype
             if (tempArr == null) {
-                insert(FunDec.func, tempNode, FunDec.col + 1, FunDec.row + 1);
+                insert(FunDec.funcId, tempNode, FunDec.pos);
                 indent(level);
-                System.out.println("Function prototype: " + FunDec.func);
+                out.println("Function prototype: " + FunDec.func);
             } else {
-                // Check if prototype already exists; if not, add it
-                boolean prototypeExists = false;
-                for (NodeType node : tempArr) {
-                    FunctionDec existingFunc = (FunctionDec) node.def;
-                    if (existingFunc.body.isNilExp() == 1) {
-                        prototypeExists = true;
-                        break;
-                    }
-                }
-                if (!prototypeExists) {
-                    tempArr.add(tempNode);
+                // Check if prototype already exists; if not, note it on the definition
+                FunctionDec existingFunc = (FunctionDec) tempArr.def;
+                if (existingFunc.body.isNilExp() != 1) {
+                    tempArr.prototyped = true;
                 }
             }
         }
     }
     
+    // The parameters and body of a function definition, once the function is bound
+    private void checkBody(FunctionDec FunDec, int level) {
+        CompilerEvents.FunctionCheck event = CompilerEvents.recording() ? new CompilerEvents.FunctionCheck() : null;
+        if (event != null) {
+            event.begin();
+        }
+        Type prevReturnType = currentReturnType;
+        currentReturnType = Type.of(FunDec.result.typeVal);//we use this to check if return exp matches
+
+        funcMsg = "for function " + FunDec.func;//passes this to compoundExp
+
+        // Add parameters and process it in the body
+        paramsToAdd = FunDec.parameters; //we are gonna handle this in the boddy
+
+        if (FunDec.body != null) {
+            FunDec.body.accept(this, level);
+        }
+
+        indent(level + 1);
+        out.println("Exiting function " + FunDec.func + " scope");
+        currentReturnType = prevReturnType;
+
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.function = FunDec.func;
+            event.nodes = NodeCounter.count(FunDec);
+            event.parallel = worker;
+            event.commit();
+        }
+    }
+
     // Check if the var's index is a int, can be done because index is of type exp
     public void visit(IndexVar var, int level) {
         // We simply need to check if the index is of type int
-        if (getExpType(var.index) != 0) {
-            System.err.println("Error in line " + (var.row + 1) + ", column " + (var.col + 1) + " Syntax Error: Index is not of type int\n");
+        if (typeOf(var.index) != Type.INT) {
+            diagnostics.error(Diagnostics.INDEX_NOT_INT, var.pos);
         }
     }
 
@@ -598,12 +736,16 @@ public class SemanticAnalyzer implements AbsynVisitor {
     // Matches the functions return type?
     public void visit(ReturnExp exp, int level) {
         // Check if current scopes return type matches the return statements type
-        if (currentReturnType != getExpType(exp.exp)) {
-            System.err.println("Error in line " + (exp.row + 1) + ", column " + (exp.col + 1) + " Semantic Error: Invalid return type\n");
+        if (currentReturnType != typeOf(exp.exp)) {
+            diagnostics.error(Diagnostics.BAD_RETURN, exp.pos);
         }
     }
 
+    // Found an instance of a varriable, check to see if it was declared previously
     public void visit(VarExp exp, int level) {
+        if (wasDefined(exp) != 1) {
+            diagnostics.error(Diagnostics.VAR_UNDECLARED, exp.variable.pos);
+        }
         exp.variable.accept(this, level);
     }
 
@@ -623,23 +765,19 @@ public class SemanticAnalyzer implements AbsynVisitor {
         }
 
         // Print declared varriable details like the symbol table
-        System.out.println(dec.name + ": " + dataType );
+        out.println(dec.name + ": " + dataType );
 
         // Get the current scopes table and find an instance of the declared variables name in the current scope
-        insert(dec.name, new NodeType(level, dec.name, dec), dec.col + 1, dec.row + 1);
+        insert(dec.nameId, new NodeType(level, dec.name, dec), dec.pos);
     }
 
-    // Found an instance of a varriable, check to see if it was declared previously
+    // Whether it was declared is checked by visit(VarExp), which holds the binding
     public void visit(SimpleVar var, int level) {
-        if (wasDefined(var.name) != 1) {
-            System.err.println("Error in line " + (var.row + 1) + ", column " + (var.col + 1) + " Semantic Error: Varriable was not declared\n");
-        }
     }
 
     public void visit(VarDecList varDecList, int level) {
-        while(varDecList != null) {
-            varDecList.head.accept(this, level);
-            varDecList = varDecList.tail;
+        for (int i = 0; i < varDecList.size(); i++) {
+            varDecList.get(i).accept(this, level);
         }
     }
 }
\ No newline at end of file
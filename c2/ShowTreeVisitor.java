@@ -1,23 +1,40 @@
 import absyn.*;
+import java.io.PrintStream;
 
 public class ShowTreeVisitor implements AbsynVisitor {
 
   final static int SPACES = 4;
 
+  private PrintStream out;
+  private Source source = null; // For the line and column of a node, without it only the offset is known
+
+  public ShowTreeVisitor() {
+    this( System.out );
+  }
+
+  // Prints the tree to the given stream
+  public ShowTreeVisitor( PrintStream out ) {
+    this.out = out;
+  }
+
+  // Prints the tree where the compile sends it
+  public ShowTreeVisitor( Compilation compilation ) {
+    this( compilation.treeOut );
+    source = compilation.source;
+  }
+
   private void indent( int level ) {
-    for( int i = 0; i < level * SPACES; i++ ) System.out.print( " " );
+    out.print( " ".repeat( level * SPACES ) );
   }
 
   public void visit( ExpList expList, int level ) {
-    while( expList != null ) {
-      expList.head.accept( this, level );
-      expList = expList.tail;
-    } 
+    for( int i = 0; i < expList.size(); i++ )
+      expList.get( i ).accept( this, level );
   }
 
   public void visit( AssignExp exp, int level ) {
     indent( level );
-    System.out.println( "AssignExp:" );
+    out.println( "AssignExp:" );
     level++;
     exp.lhs.accept( this, level );
     exp.rhs.accept( this, level );
@@ -25,7 +42,7 @@ public class ShowTreeVisitor implements AbsynVisitor {
 
   public void visit( IfExp exp, int level ) {
     indent( level );
-    System.out.println( "IfExp:" );
+    out.println( "IfExp:" );
     level++;
     exp.test.accept( this, level );
     exp.thenpart.accept( this, level );
@@ -35,48 +52,49 @@ public class ShowTreeVisitor implements AbsynVisitor {
 
   public void visit( IntExp exp, int level ) {
     indent( level );
-    System.out.println( "IntExp: " + exp.value ); 
+    out.println( "IntExp: " + exp.value ); 
   }
 
   public void visit( OpExp exp, int level ) {
     indent( level );
-    System.out.print( "OpExp:" ); 
+    out.print( "OpExp:" ); 
     switch( exp.op ) {
       case OpExp.PLUS:
-        System.out.println( " + " );
+        out.println( " + " );
         break;
       case OpExp.MINUS:
-        System.out.println( " - " );
+        out.println( " - " );
         break;
       case OpExp.TIMES:
-        System.out.println( " * " );
+        out.println( " * " );
         break;
       case OpExp.OVER:
-        System.out.println( " / " );
+        out.println( " / " );
         break;
       case OpExp.EQ:
-        System.out.println( " == " );
+        out.println( " == " );
         break;
       case OpExp.LT:
-        System.out.println( " < " );
+        out.println( " < " );
         break;
       case OpExp.GT:
-        System.out.println( " > " );
+        out.println( " > " );
         break;
       case OpExp.UMINUS:
-        System.out.println( " - " );
+        out.println( " - " );
         break;
       case OpExp.AND:
-        System.out.println( " AND ");
+        out.println( " AND ");
         break;
       case OpExp.OR:
-        System.out.println( " OR ");
+        out.println( " OR ");
         break;
       case OpExp.APPROX:
-        System.out.println( " NOT ");
+        out.println( " NOT ");
         break;
       default:
-        System.out.println( "Unrecognized operator at line " + exp.row + " and column " + exp.col);
+        out.println( "Unrecognized operator at line " + ( source == null ? 0 : source.line( exp.pos ) ) +
+                     " and column " + ( source == null ? exp.pos : source.column( exp.pos ) ) );
     }
     level++;
     if (exp.left != null)
@@ -89,7 +107,7 @@ public class ShowTreeVisitor implements AbsynVisitor {
   public void visit( VarExp expVar, int level ) {
     indent( level );
 
-    System.out.println( "VarExp:");
+    out.println( "VarExp:");
 
     level++;
     
@@ -102,40 +120,40 @@ public class ShowTreeVisitor implements AbsynVisitor {
 
     level++;
 
-    System.out.println("ArrayDec:");
+    out.println("ArrayDec:");
 
     indent( level );
 
     if(arrayDec.typ.typeVal == 0)
     {
-      System.out.println("NameTy: int");
+      out.println("NameTy: int");
 
       indent( level );
 
-      System.out.println("Name: " + arrayDec.name);
+      out.println("Name: " + arrayDec.name);
 
       if( arrayDec.size != 0)
       {
         indent( level );
-        System.out.println("Size: " + arrayDec.size );
+        out.println("Size: " + arrayDec.size );
       }
     }
     else if(arrayDec.typ.typeVal == 3)
     {
-      System.out.println("NameTy: bool ");
+      out.println("NameTy: bool ");
 
       indent( level );
 
-      System.out.println("Name: " + arrayDec.name);
+      out.println("Name: " + arrayDec.name);
 
       if( arrayDec.size != 0)
       {
         indent( level );
-        System.out.println("Size: " + arrayDec.size );
+        out.println("Size: " + arrayDec.size );
       }
     }
     else{
-      System.out.println("NameTy: Undefined");//undefined type was somehow used
+      out.println("NameTy: Undefined");//undefined type was somehow used
     }
   }
 
@@ -143,56 +161,57 @@ public class ShowTreeVisitor implements AbsynVisitor {
   {
     indent( level );
     level++;
-    System.out.println("BoolExp: " + expBool.value);
+    out.println("BoolExp: " + expBool.value);
   }
 
   public void visit(CallExp expCall, int level)
   {
     indent( level );
 
-    System.out.println("CallExp: ");
+    out.println("CallExp: ");
 
     level++;
 
     indent( level );
 
-    System.out.println("Func: " + expCall.fun);
+    out.println("Func: " + expCall.fun);
 
     ExpList listOfArguments = expCall.args;
 
-    while(listOfArguments != null)
+    if(listOfArguments != null)
     {
-      listOfArguments.head.accept(this, level);
-
-      listOfArguments = listOfArguments.tail;
+      for(int i = 0; i < listOfArguments.size(); i++)
+      {
+        listOfArguments.get(i).accept(this, level);
+      }
     }
   }
 
   public void visit( NameTy type, int level ){
     indent( level );
     if(type.typeVal == 0){
-      System.out.println( "NameTy: INT" );
+      out.println( "NameTy: INT" );
     }
     else if(type.typeVal == 1){
-      System.out.println( "NameTy: VOID" );
+      out.println( "NameTy: VOID" );
     }
     else if(type.typeVal == 2){
-      System.out.println( "NameTy: NULL" );
+      out.println( "NameTy: NULL" );
     }
     else if(type.typeVal == 3){
-      System.out.println( "NameTy: BOOL" );
+      out.println( "NameTy: BOOL" );
     }
   }
 
   public void visit( NilExp exp, int level ){
     indent( level );
-    System.out.println( "NilExp: NULL" );
+    out.println( "NilExp: NULL" );
 
   }
 
   public void visit( ReturnExp exp, int level ){
     indent( level );
-    System.out.println( "ReturnExp:" );
+    out.println( "ReturnExp:" );
 
     if(exp.exp!=null){//if we have an expression to go with the return, envoke that expression visit function
       level++; //go down a level further
@@ -203,81 +222,79 @@ public class ShowTreeVisitor implements AbsynVisitor {
 
   public void visit( SimpleDec dec, int level ){
     indent( level );
-    System.out.println( "SimpleDec:" );
+    out.println( "SimpleDec:" );
     //go down a level and print the type along with the name
     level++;
     
     indent( level );
     if(dec.typ.typeVal == 0){
-      System.out.println( "NameTy: INT" );
+      out.println( "NameTy: INT" );
     }
     else if(dec.typ.typeVal == 1){
-      System.out.println( "NameTy: VOID" );
+      out.println( "NameTy: VOID" );
     }
     else if(dec.typ.typeVal == 2){
-      System.out.println( "NameTy: NULL" );
+      out.println( "NameTy: NULL" );
     }
     else if(dec.typ.typeVal == 3){
-      System.out.println( "NameTy: BOOL" );
+      out.println( "NameTy: BOOL" );
     }
 
     indent( level );
-    System.out.println( "Name: " + dec.name );
+    out.println( "Name: " + dec.name );
 
   }
 
   public void visit( SimpleVar var, int level ){
     indent( level );
-    System.out.println( "SimpleVar: " + var.name );
+    out.println( "SimpleVar: " + var.name );
 
   }
 
   public void visit( VarDecList varDecList, int level ){
-    VarDecList tempList = varDecList;
-
     //loop through and print each node in the list, similar to ExpList
-    while(tempList!=null){
-      tempList.head.accept(this,level);
-      tempList = tempList.tail;
+    for(int i = 0; i < varDecList.size(); i++){
+      varDecList.get(i).accept(this,level);
     }
 
   }
 
   public void visit( IndexVar var, int level ){
     indent( level );
-    System.out.println( "IndexVar: " + var.name );
+    out.println( "IndexVar: " + var.name );
     level++;
     var.index.accept(this,level);
   }
 
   public void visit( FunctionDec FunDec, int level ){
     indent( level );
-    System.out.println( "FunctionDec:");
+    out.println( "FunctionDec:");
 
     //Print the return type
     level++;
     indent( level );
     if(FunDec.result.typeVal == 0){
-      System.out.println( "NameTy: INT" );
+      out.println( "NameTy: INT" );
     }
     else if(FunDec.result.typeVal == 1){
-      System.out.println( "NameTy: VOID" );
+      out.println( "NameTy: VOID" );
     }
     else if(FunDec.result.typeVal == 2){
-      System.out.println( "NameTy: NULL" );
+      out.println( "NameTy: NULL" );
     }
     else if(FunDec.result.typeVal == 3){
-      System.out.println( "NameTy: BOOL" );
+      out.println( "NameTy: BOOL" );
     }
 
     //print function name next
     indent( level );
-    System.out.println( "func: " + FunDec.func );
+    out.println( "func: " + FunDec.func );
 
     VarDecList tempList = FunDec.parameters;
-    while(tempList!=null){
-      tempList.head.accept(this,level);
-      tempList = tempList.tail;
+    if(tempList!=null){
+      for(int i = 0; i < tempList.size(); i++){
+        tempList.get(i).accept(this,level);
+      }
     }
 
     //if it has a body print that out too
@@ -291,35 +308,28 @@ public class ShowTreeVisitor implements AbsynVisitor {
 
   public void visit( CompoundExp exp, int level ){
     indent( level );
-    System.out.println( "CompoundExp: " );
+    out.println( "CompoundExp: " );
     level++;
 
     //print out the Var Decs
     VarDecList tempVarDecList = exp.decs;
-    while( tempVarDecList  != null ) {
-      tempVarDecList.head.accept( this, level );
-      tempVarDecList  = tempVarDecList.tail;
+    for( int i = 0; i < tempVarDecList.size(); i++ ) {
+      tempVarDecList.get( i ).accept( this, level );
     }
 
     //Next print out the exps
     ExpList tempList = exp.exps;
-    while( tempList != null ) {
-      tempList.head.accept( this, level );
-      tempList = tempList.tail;
+    for( int i = 0; i < tempList.size(); i++ ) {
+      tempList.get( i ).accept( this, level );
     }
 
   }
 
   public void visit( DecList decList, int level ){
 
-    //print out the decs stored
-    DecList tempDecList = decList;
-  
-    if(tempDecList.head != null){ //in cases where an empty declist was declared
-      while( tempDecList != null ) {
-        tempDecList.head.accept( this, level );
-        tempDecList   = tempDecList.tail;
-      }
+    //print out the decs stored, an empty declist simply prints nothing
+    for( int i = 0; i < decList.size(); i++ ) {
+      decList.get( i ).accept( this, level );
     }
 
   }
@@ -327,7 +337,7 @@ public class ShowTreeVisitor implements AbsynVisitor {
 
   public void visit( WhileExp exp, int level ){
     indent( level );
-    System.out.println( "WhileExp:" );
+    out.println( "WhileExp:" );
     level++;
 
     if(exp.test!=null){
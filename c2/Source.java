@@ -0,0 +1,211 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import absyn.NameTable;
+
+/* The text of one source file as DirectLexer reads it. C- is plain ASCII, so open() maps the file
+   and the lexer looks at its bytes where they are: no charset decoding and no copy into a char
+   buffer. Only identifiers, when the NameTable sees them the first time, and the odd character in
+   an error message are ever turned into Strings. A file with any byte outside ASCII, and any text
+   that only comes as a Reader, is decoded into a char[] the way FileReader would and read from
+   there instead.
+   Tokens and tree nodes only keep the offset where they start. line() and column() turn an offset
+   back into the line and column JFlex's %line and %column used to count, from an index of where
+   each line starts that is built the first time one is asked for. */
+public abstract class Source {
+
+    // Smaller files are read into the heap, mapping costs more than reading a few pages
+    private final static int MAP_SIZE = 64 * 1024;
+
+    private int[] lineStarts = null; // Offset of the first character of each line, one slot per line
+
+    public abstract int length();
+
+    public abstract char charAt(int i);
+
+    // The NameTable id of the identifier at start, interned straight from the text
+    public abstract int intern(NameTable names, int start, int length);
+
+    public abstract String text(int start, int length);
+
+    // The file's bytes, mapped or read, with the platform charset as the fallback like FileReader
+    public static Source open(String file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            long size = channel.size();
+            ByteBuffer bytes;
+            if (size >= MAP_SIZE) {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                bytes = ByteBuffer.allocate((int) size);
+                while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                }
+                bytes.flip();
+            }
+            if (isAscii(bytes)) {
+                return new Ascii(bytes);
+            }
+            byte[] all = new byte[bytes.limit()];
+            bytes.get(0, all);
+            char[] text = new String(all, Charset.defaultCharset()).toCharArray();
+            return new Chars(text, text.length);
+        }
+    }
+
+    // Everything the reader has, in a char[]
+    public static Source read(Reader in) throws IOException {
+        char[] buf = new char[8192];
+        int end = 0;
+        int n;
+        while ((n = in.read(buf, end, buf.length - end)) > 0) {
+            end += n;
+            if (end == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+        }
+        return new Chars(buf, end);
+    }
+
+    private static boolean isAscii(ByteBuffer bytes) {
+        for (int i = 0, n = bytes.limit(); i < n; i++) {
+            if (bytes.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The line the offset is on, from 0
+    public int line(int offset) {
+        int[] starts = lineStarts();
+        int low = 0, high = starts.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (starts[middle] <= offset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    // The column of the offset on its line, from 0
+    public int column(int offset) {
+        return offset - lineStart(offset);
+    }
+
+    // Offset of the start of the line the offset is on
+    public int lineStart(int offset) {
+        return lineStarts()[line(offset)];
+    }
+
+    private synchronized int[] lineStarts() {
+        if (lineStarts == null) {
+            lineStarts = indexLines();
+        }
+        return lineStarts;
+    }
+
+    // Lines end where JFlex ends them: \r\n, \r, \n, \u000B, \u000C, \u0085, \u2028 or \u2029
+    private int[] indexLines() {
+        int[] starts = new int[64];
+        int count = 1;
+        for (int i = 0, n = length(); i < n; i++) {
+            char c = charAt(i);
+            if (c > '\r' && c != '\u0085' && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+            if (c == '\r' && i + 1 < n && charAt(i + 1) == '\n') {
+                i++;
+            } else if (c != '\r' && c != '\n' && c != '\u000B' && c != '\u000C' && c != '\u0085' && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            starts[count++] = i + 1;
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    // The same text as a Reader, for the JFlex Lexer
+    public Reader reader() {
+        return new Reader() {
+            private int pos = 0;
+
+            public int read(char[] buf, int offset, int count) {
+                if (pos >= length()) {
+                    return -1;
+                }
+                int n = Math.min(count, length() - pos);
+                for (int i = 0; i < n; i++) {
+                    buf[offset + i] = charAt(pos + i);
+                }
+                pos += n;
+                return n;
+            }
+
+            public void close() {
+            }
+        };
+    }
+
+    // ASCII bytes, one char each
+    static final class Ascii extends Source {
+        private final ByteBuffer bytes;
+
+        Ascii(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        public int length() {
+            return bytes.limit();
+        }
+
+        public char charAt(int i) {
+            return (char) bytes.get(i);
+        }
+
+        public int intern(NameTable names, int start, int length) {
+            return names.intern(bytes, start, length);
+        }
+
+        public String text(int start, int length) {
+            byte[] text = new byte[length];
+            bytes.get(start, text);
+            return new String(text, StandardCharsets.US_ASCII);
+        }
+    }
+
+    // Decoded text
+    static final class Chars extends Source {
+        private final char[] chars;
+        private final int length;
+
+        Chars(char[] chars, int length) {
+            this.chars = chars;
+            this.length = length;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public char charAt(int i) {
+            return chars[i];
+        }
+
+        public int intern(NameTable names, int start, int length) {
+            return names.intern(chars, start, length);
+        }
+
+        public String text(int start, int length) {
+            return new String(chars, start, length);
+        }
+    }
+}
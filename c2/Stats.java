@@ -0,0 +1,120 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java_cup.runtime.Symbol;
+
+/* Where one compile spent its time (-t). Each phase gets wall time, CPU time and bytes allocated,
+   the last two from the ThreadMXBean of the thread running it (workers checking bodies in parallel
+   add their own). Lexing happens inside parsing, one token at a time when the parser asks for it,
+   so the lexer is wrapped (see lexing) to time each call and the parse phase has that taken out.
+   Reading the thread's CPU clock costs far more than lexing a token, so lexing's CPU time is its
+   share of the parse's CPU time by wall time, and is marked as an estimate.
+   Also counts tokens, tree nodes, scopes entered and symbol table lookups. */
+public class Stats {
+
+    public final static int LEX = 0;
+    public final static int PARSE = 1;
+    public final static int TREE = 2;   // ShowTreeVisitor writing the .abs listing
+    public final static int CHECK = 3;  // SemanticAnalyzer, which writes the .sym listing as it goes
+    public final static int ERRORS = 4; // Formatting and printing the diagnostics
+    public final static String[] PHASES = { "lex", "parse", "tree", "check", "errors" };
+
+    private final static ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    public final long[] wall = new long[PHASES.length];  // Nanoseconds
+    public final long[] cpu = new long[PHASES.length];   // Nanoseconds, 0 if the JVM can't measure it
+    public final long[] alloc = new long[PHASES.length]; // Bytes, 0 if the JVM can't measure it
+    private final long[] startWall = new long[PHASES.length];
+    private final long[] startCpu = new long[PHASES.length];
+    private final long[] startAlloc = new long[PHASES.length];
+
+    public long tokens = 0;
+    public long nodes = 0;
+    public long scopes = 0;
+    public long lookups = 0;
+
+    public void begin(int phase) {
+        startWall[phase] = System.nanoTime();
+        startCpu[phase] = cpuTime();
+        startAlloc[phase] = allocated();
+    }
+
+    public void end(int phase) {
+        wall[phase] += System.nanoTime() - startWall[phase];
+        cpu[phase] += cpuTime() - startCpu[phase];
+        alloc[phase] += allocated() - startAlloc[phase];
+    }
+
+    // CPU time and allocation of another thread's share of a phase (a checkParallel worker)
+    public synchronized void add(int phase, long threadCpu, long threadAlloc) {
+        cpu[phase] += threadCpu;
+        alloc[phase] += threadAlloc;
+    }
+
+    // Takes lexing out of the parse phase it ran inside of, estimating its CPU time (see the top)
+    public void separateLexing() {
+        long lexCpu = wall[PARSE] > 0 ? (long) ((double) cpu[PARSE] * wall[LEX] / wall[PARSE]) : 0;
+        wall[PARSE] -= wall[LEX];
+        cpu[LEX] = lexCpu;
+        cpu[PARSE] -= lexCpu;
+        alloc[PARSE] -= alloc[LEX];
+    }
+
+    // This thread's CPU time so far
+    public static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    // Bytes this thread has allocated so far
+    public static long allocated() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    // The lexer as the parser sees it, counting tokens and timing each one as lexing
+    public java_cup.runtime.Scanner lexing(java_cup.runtime.Scanner lexer) {
+        return () -> {
+            long start = System.nanoTime();
+            long startAlloc = allocated();
+            Symbol token = lexer.next_token();
+            alloc[LEX] += allocated() - startAlloc;
+            wall[LEX] += System.nanoTime() - start;
+            tokens++;
+            return token;
+        };
+    }
+
+    // One line per phase, then the totals and the counts
+    public void printTable(PrintStream out) {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%-8s %10s %10s %12s%n", "phase", "wall ms", "cpu ms", "alloc KB"));
+        long totalWall = 0, totalCpu = 0, totalAlloc = 0;
+        for (int p = 0; p < PHASES.length; p++) {
+            text.append(String.format("%-8s %10.2f %10s %12.1f%n", PHASES[p], wall[p] / 1e6,
+                                      (p == LEX ? "~" : "") + String.format("%.2f", cpu[p] / 1e6), alloc[p] / 1024.0));
+            totalWall += wall[p];
+            totalCpu += cpu[p];
+            totalAlloc += alloc[p];
+        }
+        text.append(String.format("%-8s %10.2f %10.2f %12.1f%n", "total", totalWall / 1e6, totalCpu / 1e6, totalAlloc / 1024.0));
+        text.append(String.format("%d tokens, %d nodes, %d scopes, %d lookups%n", tokens, nodes, scopes, lookups));
+        out.print(text);
+        out.flush();
+    }
+
+    // The same numbers as one JSON object, times in nanoseconds and allocation in bytes
+    public String toJson(String file) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"file\": \"").append(file.replace("\\", "\\\\").replace("\"", "\\\"")).append("\", \"phases\": {");
+        for (int p = 0; p < PHASES.length; p++) {
+            json.append(p == 0 ? "" : ", ").append('"').append(PHASES[p]).append("\": {\"wallNs\": ").append(wall[p])
+                .append(", \"cpuNs\": ").append(cpu[p]).append(", \"allocBytes\": ").append(alloc[p])
+                .append(p == LEX ? ", \"cpuEstimated\": true}" : "}");
+        }
+        json.append("}, \"tokens\": ").append(tokens).append(", \"nodes\": ").append(nodes)
+            .append(", \"scopes\": ").append(scopes).append(", \"lookups\": ").append(lookups).append('}');
+        return json.toString();
+    }
+}
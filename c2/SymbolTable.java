@@ -0,0 +1,155 @@
+import java.util.Arrays;
+
+/* One table for every scope (LeBlanc-Cook style). Names are NameTable ids, so the table is
+   simply an array indexed by id holding the innermost visible binding for that name. A binding
+   that hides an outer one keeps a link to it (shadowed), and every scope keeps a chain of the
+   bindings made in it (nextInScope) so leaving the scope only has to undo those.
+   Lookup is a single array read no matter how deeply blocks are nested, and entering or
+   leaving a scope allocates nothing.
+   A table can also be made over a finished global table, for checking one function body on
+   its own: it holds only the body's scopes and falls back to the globals bound before the
+   function (see setOrder). The global table is only read, so any number of these can share it. */
+public class SymbolTable {
+    private NodeType[] bindings;  // Innermost visible binding for each name id
+    private NodeType[] scopes;    // Most recent binding made in each open scope, 0 is the global scope
+    private int depth = 0;
+    private SymbolTable globals = null; // Finished global table this one falls back to, if any
+    private int order = Integer.MAX_VALUE; // Only globals bound by top-level declarations up to this one are visible
+
+    public long scopesEntered = 0; // For Stats
+    public long lookups = 0;
+
+    public SymbolTable(int nameCount) {
+        bindings = new NodeType[Math.max(16, nameCount)];
+        scopes = new NodeType[16];
+    }
+
+    public SymbolTable(SymbolTable globals, int nameCount) {
+        this(nameCount);
+        this.globals = globals;
+    }
+
+    // Which top-level declaration is being checked, so globals declared after it stay hidden
+    public void setOrder(int order) {
+        this.order = order;
+    }
+
+    // Current scope, 0 while in the global scope
+    public int depth() {
+        return depth;
+    }
+
+    public void enterScope() {
+        scopesEntered++;
+        depth++;
+        if (depth == scopes.length) {
+            scopes = Arrays.copyOf(scopes, depth * 2);
+        }
+        scopes[depth] = null;
+    }
+
+    // Undo every binding the scope made, bringing back whatever they were hiding
+    public void exitScope() {
+        for (NodeType node = scopes[depth]; node != null; node = node.nextInScope) {
+            bindings[node.nameId] = node.shadowed;
+        }
+        scopes[depth] = null;
+        depth--;
+    }
+
+    // Binds the name in the current scope, returns false (and changes nothing) if it's already bound there
+    public boolean insert(int id, NodeType node) {
+        if (id >= bindings.length) {
+            bindings = Arrays.copyOf(bindings, Math.max(id + 1, bindings.length * 2));
+        }
+        NodeType outer = bindings[id];
+        if (outer != null && outer.depth == depth) {
+            return false;
+        }
+        node.nameId = id;
+        node.depth = depth;
+        node.shadowed = outer;
+        node.nextInScope = scopes[depth];
+        scopes[depth] = node;
+        bindings[id] = node;
+        return true;
+    }
+
+    // Binds a new node over the one already bound in the current scope (a function definition over its
+    // prototype). The old node stays on the shadowed link, so a body checked against the global table
+    // from before the replacement still sees it
+    public void replace(int id, NodeType node) {
+        NodeType old = lookupLocal(id);
+        if (old == null) {
+            insert(id, node);
+            return;
+        }
+        bindings[id] = old.shadowed;
+        insert(id, node); // Can't fail, nothing is bound in this scope any more
+        node.shadowed = old;
+    }
+
+    // Innermost binding of the name in any open scope, null if there is none
+    public NodeType lookup(int id) {
+        lookups++;
+        return find(id);
+    }
+
+    private NodeType find(int id) {
+        NodeType node = id < bindings.length ? bindings[id] : null;
+        if (node == null && globals != null) {
+            return globals.visible(id, order);
+        }
+        return node;
+    }
+
+    // Newest global binding of the name made by top-level declarations up to the given one
+    private NodeType visible(int id, int order) {
+        NodeType node = find(id);
+        while (node != null && node.order > order) {
+            node = node.shadowed;
+        }
+        return node;
+    }
+
+    // Binding of the name in the current scope only
+    public NodeType lookupLocal(int id) {
+        lookups++;
+        NodeType node = find(id);
+        return node != null && node.depth == depth ? node : null;
+    }
+
+    // Binding of the name in the global scope, skipping anything local that hides it
+    public NodeType lookupGlobal(int id) {
+        lookups++;
+        if (globals != null) {
+            return globals.visible(id, order);
+        }
+        NodeType node = find(id);
+        while (node != null && node.depth != 0) {
+            node = node.shadowed;
+        }
+        return node;
+    }
+
+    // Removes the name from the current scope, returns false if it wasn't bound there
+    public boolean delete(int id) {
+        NodeType node = lookupLocal(id);
+        if (node == null) {
+            return false;
+        }
+        bindings[id] = node.shadowed;
+
+        // Unlink it from the scope's chain so leaving the scope doesn't restore it twice
+        if (scopes[depth] == node) {
+            scopes[depth] = node.nextInScope;
+        } else {
+            NodeType prev = scopes[depth];
+            while (prev.nextInScope != node) {
+                prev = prev.nextInScope;
+            }
+            prev.nextInScope = node.nextInScope;
+        }
+        return true;
+    }
+}
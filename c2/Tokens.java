@@ -0,0 +1,108 @@
+import java.util.Arrays;
+import java_cup.runtime.Symbol;
+import absyn.NameTable;
+
+/* The tokens of one file in three parallel arrays instead of one Symbol object each: the kind
+   (a sym constant), the offset in the source where it starts and an int for the value. An ID's
+   value is its NameTable id, a NUM's is the number itself and a TRUTH's is 1 for true and 0 for
+   false, so nothing is allocated per token and the text is only made into a String when someone
+   asks for it. DirectLexer fills it; the Scanner dump reads it as it is, and
+   symbol() makes the Symbol CUP's parser needs for a token, with the offset as its left and right. */
+public class Tokens {
+    private NameTable names;
+    private final Source source;
+
+    private byte[] kinds;
+    private int[] offsets;
+    private int[] values;
+    private int size = 0;
+
+    // Room for about one token per three characters of source to start with, so a typical
+    // file fills the arrays without copying them as they grow
+    public Tokens(NameTable names, Source source) {
+        this(names, source, source.length());
+    }
+
+    // The same for a lexer that only reads chars characters of the source
+    public Tokens(NameTable names, Source source, int chars) {
+        this.names = names;
+        this.source = source;
+        int capacity = chars / 3 + 64;
+        kinds = new byte[capacity];
+        offsets = new int[capacity];
+        values = new int[capacity];
+    }
+
+    public void add(int kind, int offset, int value) {
+        if (size == kinds.length) {
+            kinds = Arrays.copyOf(kinds, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        kinds[size] = (byte) kind;
+        offsets[size] = offset;
+        values[size] = value;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int kind(int i) {
+        return kinds[i];
+    }
+
+    // Where the token starts, source.line() and source.column() give its line and column
+    public int offset(int i) {
+        return offsets[i];
+    }
+
+    public int value(int i) {
+        return values[i];
+    }
+
+    // Moves the IDs over to another NameTable, ids[old] being each name's id in it. For tokens
+    // lexed with a table of their own (ParallelParser's pieces)
+    public void renumber(int[] ids, NameTable names) {
+        for (int i = 0; i < size; i++) {
+            if (kinds[i] == sym.ID) {
+                values[i] = ids[values[i]];
+            }
+        }
+        this.names = names;
+    }
+
+    // Where a NUM's digits end in the source, they start at its offset
+    private int numberEnd(int start) {
+        int end = start;
+        while (end < source.length() && source.charAt(end) >= '0' && source.charAt(end) <= '9') {
+            end++;
+        }
+        return end;
+    }
+
+    // Adds the token's text to out without making a String, nothing for a token with no value
+    public void appendText(int i, StringBuilder out) {
+        switch (kinds[i]) {
+            case sym.ID: out.append(names.name(values[i])); break;
+            case sym.NUM:
+                for (int c = offsets[i], end = numberEnd(c); c < end; c++) {
+                    out.append(source.charAt(c));
+                }
+                break;
+            case sym.TRUTH: out.append(values[i] == 1 ? "true" : "false"); break;
+        }
+    }
+
+    // The token as the Symbol CUP's parser works with, its value the same one Lexer gives
+    public Symbol symbol(int i) {
+        int offset = offsets[i];
+        switch (kinds[i]) {
+            case sym.ID: return new Symbol(sym.ID, offset, offset, names.boxed(values[i]));
+            case sym.NUM: return new Symbol(sym.NUM, offset, offset, Integer.valueOf(values[i]));
+            case sym.TRUTH: return new Symbol(sym.TRUTH, offset, offset, Boolean.valueOf(values[i] == 1));
+            default: return new Symbol(kinds[i], offset, offset);
+        }
+    }
+}
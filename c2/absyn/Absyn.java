@@ -1,7 +1,7 @@
 package absyn;
 
 abstract public class Absyn {
-  public int row, col;
+  public int pos; // Offset in the source, Source.line() and Source.column() give the row and col
 
   abstract public void accept( AbsynVisitor visitor, int level );
 }
@@ -3,14 +3,15 @@ package absyn;
 public class ArrayDec extends VarDec {
     public NameTy typ;
     public String name;
+    public int nameId;
     public int size;
     
-    //Arrays need a name, set length and a type, row and cols are needed for all objects
-    public ArrayDec ( int row, int col, NameTy decType, String name, int len ) {
-        this.row = row;
-        this.col = col;
+    //Arrays need a name, set length and a type, a position is needed for all objects
+    public ArrayDec ( int pos, NameTy decType, String name, int nameId, int len ) {
+        this.pos = pos;
         this.typ = decType;
         this.name = name;
+        this.nameId = nameId;
         this.size = len;
     }
 
@@ -26,4 +27,8 @@ public class ArrayDec extends VarDec {
         return name;
     }
 
+    public int getNameId(){
+        return nameId;
+    }
+
 }
\ No newline at end of file
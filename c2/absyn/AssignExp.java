@@ -4,9 +4,8 @@ public class AssignExp extends Exp {
   public VarExp lhs;
   public Exp rhs;
 
-  public AssignExp( int row, int col, VarExp lhs, Exp rhs ) {
-    this.row = row;
-    this.col = col;
+  public AssignExp( int pos, VarExp lhs, Exp rhs ) {
+    this.pos = pos;
     this.lhs = lhs;
     this.rhs = rhs;
   }
@@ -1,11 +1,10 @@
 package absyn;
 
 public class BoolExp extends Exp {
-  public Boolean value;
+  public boolean value;
 
-  public BoolExp( int row, int col, Boolean value ) {
-    this.row = row;
-    this.col = col;
+  public BoolExp( int pos, boolean value ) {
+    this.pos = pos;
     this.value = value;
   }
 
@@ -2,12 +2,13 @@ package absyn;
 
 public class CallExp extends Exp {
   public String fun;
+  public int funId;
   public ExpList args;
 
-  public CallExp( int row, int col, String funcName, ExpList arguments ) {
-    this.row = row;
-    this.col = col;
+  public CallExp( int pos, String funcName, int funId, ExpList arguments ) {
+    this.pos = pos;
     this.fun = funcName;
+    this.funId = funId;
     this.args = arguments;
   }
 
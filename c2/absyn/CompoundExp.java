@@ -4,9 +4,8 @@ public class CompoundExp extends Exp {
   public VarDecList decs;
   public ExpList exps;
 
-  public CompoundExp( int row, int col, VarDecList decs, ExpList stmts ) {
-    this.row = row;
-    this.col = col;
+  public CompoundExp( int pos, VarDecList decs, ExpList stmts ) {
+    this.pos = pos;
     this.decs = decs;
     this.exps = stmts;
   }
@@ -11,4 +11,9 @@ public abstract class Dec extends Absyn{
         return "";
     }
 
+    // Id of getName() in the NameTable
+    public int getNameId(){
+        return NameTable.EMPTY;
+    }
+
 }
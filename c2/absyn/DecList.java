@@ -1,15 +1,45 @@
 package absyn;
 
+import java.util.Arrays;
+
 public class DecList extends Absyn {
-    public Dec head;
-    public DecList tail;
+    // Declarations are stored back to back in an array instead of a chain of cells
+    private Dec[] items;
+    private int size;
+
+    public DecList() {
+        items = new Dec[4];
+    }
+
+    public DecList(Dec first) {
+        this();
+        add(first);
+    }
+
+    // Adds a declaration to the end of the list, grows the array when it's full
+    public DecList add(Dec dec) {
+        if (size == items.length)
+            items = Arrays.copyOf(items, Math.max(4, size * 2));
+        items[size++] = dec;
+        return this;
+    }
+
+    public Dec get(int i) {
+        return items[i];
+    }
+
+    public int size() {
+        return size;
+    }
 
-    public DecList(Dec head, DecList tail) {
-        this.head = head;
-        this.tail = tail;
+    // Drops the unused space at the end of the array once the parser is done with the list
+    public DecList trim() {
+        if (size < items.length)
+            items = Arrays.copyOf(items, size);
+        return this;
     }
 
     public void accept( AbsynVisitor visitor, int level ) {
         visitor.visit( this, level );
     }
-}
\ No newline at end of file
+}
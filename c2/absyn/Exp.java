@@ -2,8 +2,12 @@ package absyn;
 
 public abstract class Exp extends Absyn {
 
+    // For VarExp and CallExp: the declaration the name refers to, filled in once by SemanticAnalyzer.resolve
     public Dec dtype = null;
 
+    // The expression's type, filled in once by SemanticAnalyzer.typeOf
+    public Type type = null;
+
 
     public int getType(){
         return -1; //no type specified, -1 by default
@@ -1,12 +1,42 @@
 package absyn;
 
+import java.util.Arrays;
+
 public class ExpList extends Absyn {
-  public Exp head;
-  public ExpList tail;
+  // Expressions are stored back to back in an array instead of a chain of cells
+  private Exp[] items;
+  private int size;
+
+  public ExpList() {
+    items = new Exp[4];
+  }
+
+  public ExpList( Exp first ) {
+    this();
+    add( first );
+  }
+
+  // Adds an expression to the end of the list, grows the array when it's full
+  public ExpList add( Exp exp ) {
+    if( size == items.length )
+      items = Arrays.copyOf( items, Math.max( 4, size * 2 ) );
+    items[size++] = exp;
+    return this;
+  }
+
+  public Exp get( int i ) {
+    return items[i];
+  }
+
+  public int size() {
+    return size;
+  }
 
-  public ExpList( Exp head, ExpList tail ) {
-    this.head = head;
-    this.tail = tail;
+  // Drops the unused space at the end of the array once the parser is done with the list
+  public ExpList trim() {
+    if( size < items.length )
+      items = Arrays.copyOf( items, size );
+    return this;
   }
 
   public void accept( AbsynVisitor visitor, int level ) {
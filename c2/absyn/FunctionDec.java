@@ -3,15 +3,16 @@ package absyn;
 public class FunctionDec extends Dec {
     public NameTy result;
     public String func;
+    public int funcId;
     public VarDecList parameters;
     public Exp body;
     
-    //Arrays need a name, set length and a type, row and cols are needed for all objects
-    public FunctionDec ( int row, int col, NameTy type, String name, VarDecList vdl, Exp b ) {
-        this.row = row;
-        this.col = col;
+    //Arrays need a name, set length and a type, a position is needed for all objects
+    public FunctionDec ( int pos, NameTy type, String name, int nameId, VarDecList vdl, Exp b ) {
+        this.pos = pos;
         this.result = type;
         this.func = name;
+        this.funcId = nameId;
         this.parameters = vdl;
         this.body = b;
     }
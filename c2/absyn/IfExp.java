@@ -5,9 +5,8 @@ public class IfExp extends Exp {
   public Exp thenpart;
   public Exp elsepart;
 
-  public IfExp( int row, int col, Exp test, Exp thenpart, Exp elsepart ) {
-    this.row = row;
-    this.col = col;
+  public IfExp( int pos, Exp test, Exp thenpart, Exp elsepart ) {
+    this.pos = pos;
     this.test = test;
     this.thenpart = thenpart;
     this.elsepart = elsepart;
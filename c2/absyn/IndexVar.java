@@ -2,15 +2,24 @@ package absyn;
 
 public class IndexVar extends Var {
     public String name;
+    public int nameId;
     public Exp index;
 
-    public IndexVar ( int row, int col, String name, Exp index ) {
-        this.row = row;
-        this.col = col;
+    public IndexVar ( int pos, String name, int nameId, Exp index ) {
+        this.pos = pos;
         this.name = name;
+        this.nameId = nameId;
         this.index = index;
     }
 
+    public String getName(){
+        return name;
+    }
+
+    public int getNameId(){
+        return nameId;
+    }
+
     public void accept( AbsynVisitor visitor, int level ) {
         visitor.visit( this, level );
     }
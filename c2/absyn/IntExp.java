@@ -3,9 +3,8 @@ package absyn;
 public class IntExp extends Exp {
   public int value;
 
-  public IntExp( int row, int col, int value ) {
-    this.row = row;
-    this.col = col;
+  public IntExp( int pos, int value ) {
+    this.pos = pos;
     this.value = value;
   }
 
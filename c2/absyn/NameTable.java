@@ -0,0 +1,142 @@
+package absyn;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/* Interns identifiers for a whole compilation. Every distinct name is stored once and
+   handed a small int id (0, 1, 2, ...), so the tree and the symbol table can compare
+   and index names by id instead of hashing strings. The lexer interns straight from
+   its character buffer, so repeated identifiers don't allocate anything. */
+public class NameTable {
+
+    // Reserved ids: NONE stands for a missing name (null) and EMPTY for "", both come from error recovery
+    public final static int NONE = 0;
+    public final static int EMPTY = 1;
+
+    private String[] names = new String[256];
+    private Integer[] boxed = new Integer[256];
+    private int[] hashes = new int[256];
+    private int count = 0;
+
+    // Open addressing table of id + 1 (0 marks a free slot), always a power of two in size
+    private int[] slots = new int[512];
+
+    public NameTable() {
+        add(null, 0);
+        add("", 0);
+    }
+
+    // Id of the name in buf[offset .. offset + length), added to the table the first time it's seen
+    public int intern(char[] buf, int offset, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++)
+            hash = 31 * hash + buf[offset + i];
+
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0)
+                return add(new String(buf, offset, length), hash);
+            if (hashes[id] == hash && matches(names[id], buf, offset, length))
+                return id;
+        }
+    }
+
+    // The same for ASCII text in bytes (a mapped source file), the String is only made for a new name
+    public int intern(ByteBuffer bytes, int offset, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++)
+            hash = 31 * hash + bytes.get(offset + i);
+
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                char[] name = new char[length];
+                for (int i = 0; i < length; i++)
+                    name[i] = (char) bytes.get(offset + i);
+                return add(new String(name), hash);
+            }
+            if (hashes[id] == hash && matches(names[id], bytes, offset, length))
+                return id;
+        }
+    }
+
+    public int intern(String name) {
+        if (name == null)
+            return NONE;
+        return intern(name.toCharArray(), 0, name.length());
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    // The id as an Integer shared by every token with this name, so tokens don't box a new one
+    public Integer boxed(int id) {
+        return boxed[id];
+    }
+
+    // Number of ids handed out so far, ids are always below this
+    public int size() {
+        return count;
+    }
+
+    private int add(String name, int hash) {
+        if (count == names.length) {
+            names = Arrays.copyOf(names, count * 2);
+            boxed = Arrays.copyOf(boxed, count * 2);
+            hashes = Arrays.copyOf(hashes, count * 2);
+        }
+        int id = count++;
+        names[id] = name;
+        boxed[id] = id;
+        hashes[id] = hash;
+
+        // NONE has no characters to look it up by, so it never goes in the slots
+        if (name != null) {
+            if (count * 2 > slots.length)
+                rehash(slots.length * 2);
+            else
+                place(id);
+        }
+        return id;
+    }
+
+    private void rehash(int size) {
+        slots = new int[size];
+        for (int id = 0; id < count; id++)
+            if (names[id] != null)
+                place(id);
+    }
+
+    private void place(int id) {
+        int mask = slots.length - 1;
+        int slot = mix(hashes[id]) & mask;
+        while (slots[slot] != 0)
+            slot = (slot + 1) & mask;
+        slots[slot] = id + 1;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String name, ByteBuffer bytes, int offset, int length) {
+        if (name.length() != length)
+            return false;
+        for (int i = 0; i < length; i++)
+            if (name.charAt(i) != bytes.get(offset + i))
+                return false;
+        return true;
+    }
+
+    private static boolean matches(String name, char[] buf, int offset, int length) {
+        if (name.length() != length)
+            return false;
+        for (int i = 0; i < length; i++)
+            if (name.charAt(i) != buf[offset + i])
+                return false;
+        return true;
+    }
+}
@@ -9,9 +9,8 @@ public class NameTy extends Absyn {
 
     public int typeVal;
     
-    public NameTy ( int row, int col, int type) {
-        this.row = row;
-        this.col = col;
+    public NameTy ( int pos, int type) {
+        this.pos = pos;
         this.typeVal = type;
     }
 
@@ -1,9 +1,8 @@
 package absyn;
 
 public class NilExp extends Exp {
-    public NilExp( int row, int col ) {
-        this.row = row;
-        this.col = col;      
+    public NilExp( int pos ) {
+        this.pos = pos;
     }
 
     public void accept( AbsynVisitor visitor, int level ) {
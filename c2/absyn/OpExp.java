@@ -23,9 +23,8 @@ public class OpExp extends Exp {
   public int op;
   public Exp right;
 
-  public OpExp( int row, int col, Exp left, int op, Exp right ) {
-    this.row = row;
-    this.col = col;
+  public OpExp( int pos, Exp left, int op, Exp right ) {
+    this.pos = pos;
     this.left = left;
     this.op = op;
     this.right = right;
@@ -3,9 +3,8 @@ package absyn;
 public class ReturnExp extends Exp {
   public Exp exp;
 
-  public ReturnExp( int row, int col, Exp returnExpression ) {
-    this.row = row;
-    this.col = col;
+  public ReturnExp( int pos, Exp returnExpression ) {
+    this.pos = pos;
     this.exp = returnExpression;
   }
 
@@ -3,12 +3,13 @@ package absyn;
 public class SimpleDec extends VarDec {
     public NameTy typ;
     public String name;
+    public int nameId;
 
-    public SimpleDec ( int row, int col, NameTy decType, String name ) {
-        this.row = row;
-        this.col = col;
+    public SimpleDec ( int pos, NameTy decType, String name, int nameId ) {
+        this.pos = pos;
         this.typ = decType;
         this.name = name;
+        this.nameId = nameId;
     }
 
     public void accept( AbsynVisitor visitor, int level ) {
@@ -24,6 +25,10 @@ public class SimpleDec extends VarDec {
         return name;
     }
 
+    public int getNameId(){
+        return nameId;
+    }
+
 
 
 }
\ No newline at end of file
@@ -2,11 +2,12 @@ package absyn;
 
 public class SimpleVar extends Var {
     public String name;
+    public int nameId;
 
-    public SimpleVar ( int row, int col, String name ) {
-        this.row = row;
-        this.col = col;
+    public SimpleVar ( int pos, String name, int nameId ) {
+        this.pos = pos;
         this.name = name;
+        this.nameId = nameId;
     }
 
 
@@ -14,6 +15,10 @@ public class SimpleVar extends Var {
         return name;
     }
 
+    public int getNameId(){
+        return nameId;
+    }
+
     public void accept( AbsynVisitor visitor, int level ) {
         visitor.visit( this, level );
     }
@@ -0,0 +1,62 @@
+package absyn;
+
+/* The type of an expression or declaration. Types are interned: there is one object for int,
+   bool and void and one "array of" object per element type, so two types are the same exactly
+   when they are ==. ERROR is given to anything whose type can't be worked out (undeclared
+   names, missing expressions from error recovery) so it never matches a real type. */
+public class Type {
+
+    public final static Type INT = new Type("int", null);
+    public final static Type BOOL = new Type("bool", null);
+    public final static Type VOID = new Type("void", null);
+    public final static Type ERROR = new Type("error", null);
+
+    public final String name;
+    public final Type element; // For arrays, the type of each element, null otherwise
+    private Type array = null; // The array of this type, made the first time it's asked for
+
+    private Type(String name, Type element) {
+        this.name = name;
+        this.element = element;
+    }
+
+    // The type a NameTy code stands for
+    public static Type of(int typeVal) {
+        if (typeVal == NameTy.INT) {
+            return INT;
+        } else if (typeVal == NameTy.BOOL) {
+            return BOOL;
+        } else if (typeVal == NameTy.VOID) {
+            return VOID;
+        }
+        return ERROR;
+    }
+
+    // The type a declaration gives its name: arrays are arrays of their element type, functions their result type
+    public static Type of(Dec dec) {
+        if (dec instanceof SimpleDec) {
+            return of(((SimpleDec) dec).typ.typeVal);
+        } else if (dec instanceof ArrayDec) {
+            Type element = of(((ArrayDec) dec).typ.typeVal);
+            return element == ERROR ? ERROR : element.arrayOf();
+        } else if (dec instanceof FunctionDec) {
+            return of(((FunctionDec) dec).result.typeVal);
+        }
+        return ERROR;
+    }
+
+    public synchronized Type arrayOf() {
+        if (array == null) {
+            array = new Type(name + "[]", this);
+        }
+        return array;
+    }
+
+    public boolean isArray() {
+        return element != null;
+    }
+
+    public String toString() {
+        return name;
+    }
+}
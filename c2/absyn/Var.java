@@ -6,4 +6,9 @@ public abstract class Var extends Absyn{
         return "";
     }
 
+    // Id of getName() in the NameTable
+    public int getNameId(){
+        return NameTable.EMPTY;
+    }
+
 }
@@ -1,15 +1,45 @@
 package absyn;
 
+import java.util.Arrays;
+
 public class VarDecList extends Absyn {
-    public VarDec head;
-    public VarDecList tail;
+    // Declarations are stored back to back in an array instead of a chain of cells
+    private VarDec[] items;
+    private int size;
+
+    public VarDecList() {
+        items = new VarDec[4];
+    }
+
+    public VarDecList(VarDec first) {
+        this();
+        add(first);
+    }
+
+    // Adds a declaration to the end of the list, grows the array when it's full
+    public VarDecList add(VarDec dec) {
+        if (size == items.length)
+            items = Arrays.copyOf(items, Math.max(4, size * 2));
+        items[size++] = dec;
+        return this;
+    }
+
+    public VarDec get(int i) {
+        return items[i];
+    }
+
+    public int size() {
+        return size;
+    }
 
-    public VarDecList(VarDec head, VarDecList tail) {
-        this.head = head;
-        this.tail = tail;
+    // Drops the unused space at the end of the array once the parser is done with the list
+    public VarDecList trim() {
+        if (size < items.length)
+            items = Arrays.copyOf(items, size);
+        return this;
     }
 
     public void accept( AbsynVisitor visitor, int level ) {
         visitor.visit( this, level );
     }
-}
\ No newline at end of file
+}
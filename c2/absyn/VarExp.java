@@ -3,9 +3,8 @@ package absyn;
 public class VarExp extends Exp {
   public Var variable;
 
-  public VarExp( int row, int col, Var v ) {
-    this.row = row;
-    this.col = col;
+  public VarExp( int pos, Var v ) {
+    this.pos = pos;
     this.variable = v;
   }
 
@@ -4,9 +4,8 @@ public class WhileExp extends Exp {
   public Exp test;
   public Exp body;
 
-  public WhileExp( int row, int col, Exp test, Exp body ) {
-    this.row = row;
-    this.col = col;
+  public WhileExp( int pos, Exp test, Exp body ) {
+    this.pos = pos;
     this.test = test;
     this.body = body;
   }
@@ -0,0 +1,109 @@
+/*
+  File Name: CommentSpeed.java
+  To Build: make bench
+
+  Lexes sources that are mostly comments: a generated program with a
+  licence block before every declaration, one comment of several megabytes
+  over many lines, another all on one line, and comments made of rows of
+  stars. First checks that Lexer and
+  DirectLexer give the same tokens and errors for each, then prints
+  megabytes per second and bytes allocated per character of source for
+  both. Lexer skips a comment at most 1024 characters at a time in its
+  COMMENT state, so what it allocates stays the same however long the
+  comment or its lines are.
+*/
+
+public class CommentSpeed {
+
+  // A notice between two rows of stars, with more stars inside it
+  static String licence() {
+    StringBuilder text = new StringBuilder( "/**********************************************************************\n" );
+    for( int i = 0; i < 30; i++ )
+      text.append( " * Line " ).append( i ).append( " of the notice: use, copy and change this file *freely*, 2 * 3 = 6.\n" );
+    return text.append( " **********************************************************************/\n" ).toString();
+  }
+
+  // A licence block before every top-level declaration of a generated program
+  static String licensed( int functions ) {
+    String program = LexerSpeed.generated( 1, functions, 0 );
+    return program.replaceAll( "(?m)^(?=(int|bool|void) )", licence() );
+  }
+
+  // One comment of about the given size, then a small function
+  static String oneComment( int size ) {
+    StringBuilder text = new StringBuilder( size + 64 ).append( "/*\n" );
+    while( text.length() < size )
+      text.append( " * lorem ipsum dolor sit amet, ** consectetur * adipiscing elit ***\n" );
+    return text.append( " */\nint main(void) { return 0; }\n" ).toString();
+  }
+
+  // The same with no line breaks at all, one line of about the given size
+  static String oneLineComment( int size ) {
+    StringBuilder text = new StringBuilder( size + 64 ).append( "/*" );
+    while( text.length() < size )
+      text.append( " lorem ipsum dolor sit amet, ** consectetur * adipiscing elit ***" );
+    return text.append( " */\nint main(void) { return 0; }\n" ).toString();
+  }
+
+  // Rows of stars and star-slash look-alikes between a few declarations
+  static String stars( int rows ) {
+    StringBuilder text = new StringBuilder();
+    for( int i = 0; i < rows; i++ ) {
+      text.append( "/*" );
+      for( int j = 0; j < 60; j++ )
+        text.append( j % 7 == 0 ? "* /" : "**" );
+      text.append( "*/\nint g" ).append( i ).append( ";\n" );
+    }
+    return text.toString();
+  }
+
+  // Megabytes per second, best of a few runs, and bytes allocated per character
+  static double[] speed( String src, boolean direct ) throws Exception {
+    Source source = Source.read( new java.io.StringReader( src ) );
+    double best = 0, bytes = 0;
+    for( int run = 0; run < 5; run++ ) {
+      Compilation compilation = new Compilation( LexerSpeed.nowhere );
+      long start = System.nanoTime(), startBytes = Stats.allocated();
+      if( direct ) {
+        DirectLexer lexer = new DirectLexer( source, compilation );
+        while( lexer.advance() ) {
+        }
+      } else {
+        Lexer lexer = new Lexer( new java.io.StringReader( src ), compilation );
+        while( lexer.next_token() != null ) {
+        }
+      }
+      long time = System.nanoTime() - start;
+      best = Math.max( best, src.length() / 1e6 / ( time / 1e9 ) );
+      bytes = (double) ( Stats.allocated() - startBytes ) / src.length();
+    }
+    return new double[] { best, bytes };
+  }
+
+  public static void main( String argv[] ) throws Exception {
+    Object[][] inputs = {
+      { "licence blocks", licensed( 2000 ) },
+      { "one 8 MB comment", oneComment( 8000000 ) },
+      { "one 32 MB comment", oneComment( 32000000 ) },
+      { "8 MB on one line", oneLineComment( 8000000 ) },
+      { "rows of stars", stars( 50000 ) },
+    };
+    for( Object[] input : inputs )
+      if( !LexerSpeed.same( (String) input[0], (String) input[1] ) )
+        System.exit( 1 );
+    System.out.println( "DirectLexer matches Lexer on all " + inputs.length + " inputs" );
+
+    for( int i = 0; i < 3; i++ )
+      for( Object[] input : inputs ) {
+        speed( (String) input[1], false );
+        speed( (String) input[1], true );
+      }
+    System.out.printf( "%-18s %8s %12s %12s %10s %10s%n", "input", "MB", "Lexer MB/s", "Direct MB/s", "Lexer", "Direct" );
+    for( Object[] input : inputs ) {
+      String src = (String) input[1];
+      double[] jflex = speed( src, false ), direct = speed( src, true );
+      System.out.printf( "%-18s %8.1f %12.1f %12.1f %9.3fB %9.3fB%n", input[0], src.length() / 1e6, jflex[0], direct[0], jflex[1], direct[1] );
+    }
+    System.out.println( "(the last two columns are bytes allocated per character)" );
+  }
+}
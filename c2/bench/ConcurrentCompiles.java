@@ -0,0 +1,80 @@
+/*
+  File Name: ConcurrentCompiles.java
+  To Build: make bench
+
+  Runs many whole compiles (parse, tree listing, semantic check) of
+  generated programs at once, on 1 thread up to one per core, each with its
+  own Compilation. Reports compiles per second for each thread count and
+  checks that every compile printed exactly what the same program prints
+  when compiled alone, so compiles running side by side can't have leaked
+  into each other.
+*/
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class ConcurrentCompiles {
+
+  // A different program for each seed, with some errors mixed in
+  static String program( int seed, int functions ) {
+    ProgramGenerator.Settings settings = new ProgramGenerator.Settings();
+    settings.seed = seed;
+    settings.functions = functions;
+    settings.globals = functions;
+    settings.errors = 0.01;
+    return ProgramGenerator.generate( settings );
+  }
+
+  // Everything one compile printed: tree, symbol table and errors
+  static String compile( String src ) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    Compilation compilation = new Compilation( new PrintStream( err ) );
+    compilation.treeOut = new PrintStream( out );
+    compilation.tableOut = compilation.treeOut;
+    try {
+      compilation.parse( new StringReader( src ) );
+      compilation.printTree();
+      compilation.check( 0 );
+    } catch( Diagnostics.Fatal e ) {
+      // The parser gave up on this one, what it reported is still compared
+    }
+    compilation.flush();
+    compilation.treeOut.flush();
+    return out.toString() + err.toString();
+  }
+
+  public static void main( String argv[] ) throws Exception {
+    int programs = argv.length > 0 ? Integer.parseInt( argv[0] ) : 200;
+    int cores = Runtime.getRuntime().availableProcessors();
+
+    String[] sources = new String[programs];
+    String[] expected = new String[programs];
+    for( int i = 0; i < programs; i++ ) {
+      sources[i] = program( i, 50 );
+      expected[i] = compile( sources[i] );
+    }
+
+    // Warm up
+    for( int i = 0; i < 3; i++ )
+      for( String src : sources )
+        compile( src );
+
+    System.out.printf( "%d programs, %d cores%n", programs, cores );
+    System.out.printf( "%10s %12s %14s %10s%n", "threads", "ms", "compiles/s", "output" );
+    for( int threads = 1; threads <= Math.max( 2, cores ); threads *= 2 ) {
+      ExecutorService pool = Executors.newFixedThreadPool( threads );
+      List<Future<String>> results = new ArrayList<Future<String>>();
+      long start = System.nanoTime();
+      for( String src : sources )
+        results.add( pool.submit( () -> compile( src ) ) );
+      boolean same = true;
+      for( int i = 0; i < programs; i++ )
+        same &= results.get( i ).get().equals( expected[i] );
+      long time = System.nanoTime() - start;
+      pool.shutdown();
+      System.out.printf( "%10d %12.1f %14.1f %10s%n", threads, time / 1e6, programs / ( time / 1e9 ), same ? "same" : "DIFFERENT" );
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*
+  File Name: DescentCheck.java
+  To Build: make bench
+
+  Checks DescentParser (-r) against CUP's parser. Compiles every file in
+  tests/, generated programs with and without errors, deeply nested
+  programs and a few thousand small programs around random expressions
+  both ways, and compares the ShowTreeVisitor listing, the symbol table
+  listing and the errors. The random expressions mix every operator, ~,
+  parentheses, assignments in odd places, calls and indexing, so they cover
+  cm.cup's precedence (comparisons above arithmetic, nonassociative) and
+  its syntax errors. Counts how many programs DescentParser parsed itself
+  instead of handing them to CUP, stops at the first difference, then
+  times parsing alone both ways: tokens per second and bytes allocated per
+  token, lexing included.
+*/
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+public class DescentCheck {
+
+  static PrintStream nowhere = new PrintStream( OutputStream.nullOutputStream() );
+
+  // The tree listing, symbol table listing and errors of one compile, the way Main does it
+  static String compile( String src, boolean descent ) throws Exception {
+    ByteArrayOutputStream tree = new ByteArrayOutputStream(), table = new ByteArrayOutputStream(), errors = new ByteArrayOutputStream();
+    Compilation compilation = new Compilation( new PrintStream( errors ) );
+    compilation.treeOut = new PrintStream( tree );
+    compilation.tableOut = new PrintStream( table );
+    compilation.directLexer = true;
+    compilation.descentParser = descent;
+    String ended = "";
+    try {
+      if( compilation.parse( Source.read( new StringReader( src ) ) ) != null ) {
+        compilation.printTree();
+        compilation.check( 0 );
+      }
+    } catch( Diagnostics.LimitReached | Diagnostics.Fatal e ) {
+      ended = e.getClass().getSimpleName();
+    } catch( Exception | Error e ) {
+      ended = "threw " + e;
+    }
+    compilation.flush();
+    return tree + "\n---\n" + table + "\n---\n" + errors + "\n---\n" + ended;
+  }
+
+  // Whether DescentParser takes the program without handing it to CUP
+  static boolean parsesItself( String src ) throws Exception {
+    Compilation compilation = new Compilation( nowhere );
+    DirectLexer lexer = new DirectLexer( Source.read( new StringReader( src ) ), compilation );
+    return new DescentParser( lexer, compilation ).parse() != null;
+  }
+
+  static int checked = 0, itself = 0;
+
+  static void check( String name, String src ) throws Exception {
+    String expected = compile( src, false ), got = compile( src, true );
+    if( !expected.equals( got ) ) {
+      String[] e = expected.split( "\n" ), g = got.split( "\n" );
+      int i = 0;
+      while( i < e.length && i < g.length && e[i].equals( g[i] ) )
+        i++;
+      System.out.println( "DIFFERENT on " + name + " at line " + ( i + 1 ) + ": CUP " + ( i < e.length ? e[i] : "(nothing)" ) +
+                          ", DescentParser " + ( i < g.length ? g[i] : "(nothing)" ) );
+      System.out.println( src );
+      System.exit( 1 );
+    }
+    checked++;
+    if( parsesItself( src ) )
+      itself++;
+  }
+
+  static final String[] OPERATORS = { " + ", " - ", " * ", " / ", " < ", " <= ", " > ", " >= ", " == ", " != ", " && ", " || " };
+
+  // A flat run of operands and operators, so every mix of precedences comes up
+  static String expression( Random random, int depth ) {
+    StringBuilder text = new StringBuilder( operand( random, depth ) );
+    for( int n = random.nextInt( 3 ); n > 0; n-- )
+      text.append( OPERATORS[random.nextInt( OPERATORS.length )] ).append( operand( random, depth ) );
+    return text.toString();
+  }
+
+  static String operand( Random random, int depth ) {
+    int kind = depth > 0 ? random.nextInt( 12 ) : random.nextInt( 5 );
+    switch( kind ) {
+      case 0: return "x";
+      case 1: return "b";
+      case 2: return String.valueOf( random.nextInt( 100 ) );
+      case 3: return random.nextBoolean() ? "true" : "false";
+      case 4: return "f()";
+      case 5: case 6: return "(" + expression( random, depth - 1 ) + ")";
+      case 7: return "~" + operand( random, depth - 1 );
+      case 8: return "y[" + expression( random, depth - 1 ) + "]";
+      case 9: return "g(" + expression( random, depth - 1 ) + ", y)";
+      case 10: return "x = " + expression( random, depth - 1 );
+      default: return "y[" + operand( random, depth - 1 ) + "] = " + expression( random, depth - 1 );
+    }
+  }
+
+  static String statement( Random random ) {
+    String e = expression( random, 3 );
+    switch( random.nextInt( 6 ) ) {
+      case 0: return e + ";";
+      case 1: return "x = " + e + ";";
+      case 2: return "if (" + e + ") x = 1; else if (" + expression( random, 2 ) + ") { y[0] = 2; }";
+      case 3: return "while (" + e + ") { " + expression( random, 2 ) + "; }";
+      case 4: return "return " + e + ";";
+      default: return "if (" + e + ") if (b) ; else return;";
+    }
+  }
+
+  static String randomProgram( Random random ) {
+    return "int g(int a, int c[]);\nbool f(void) { return true; }\nint main(void) {\n  int x;\n  int y[10];\n  bool b;\n  " +
+           statement( random ) + "\n  " + statement( random ) + "\n}\n";
+  }
+
+  // Blocks, ifs and parentheses nested depth deep
+  static String nested( int depth ) {
+    StringBuilder text = new StringBuilder( "int main(void) {\n  int x;\n" );
+    for( int i = 0; i < depth; i++ )
+      text.append( i % 2 == 0 ? "if (x < 1) {\n" : "while (x > 2) {\n" );
+    text.append( "x = " );
+    for( int i = 0; i < depth; i++ )
+      text.append( i % 3 == 0 ? "~(" : "(x + " );
+    text.append( "1" );
+    for( int i = 0; i < depth; i++ )
+      text.append( ')' );
+    text.append( ";\n" );
+    for( int i = 0; i < depth; i++ )
+      text.append( "}\n" );
+    return text.append( "}\n" ).toString();
+  }
+
+  // Tokens per second parsing the source, best of a few runs, and bytes allocated per token
+  static double[] speed( Source source, boolean descent ) throws Exception {
+    double best = 0, bytes = 0;
+    for( int run = 0; run < 5; run++ ) {
+      Compilation compilation = new Compilation( nowhere );
+      DirectLexer lexer = new DirectLexer( source, compilation );
+      long start = System.nanoTime(), startBytes = Stats.allocated();
+      if( descent )
+        new DescentParser( lexer, compilation ).parse();
+      else
+        new parser( lexer, compilation ).parse();
+      long time = System.nanoTime() - start;
+      best = Math.max( best, lexer.tokens.size() / ( time / 1e9 ) );
+      bytes = (double) ( Stats.allocated() - startBytes ) / lexer.tokens.size();
+    }
+    return new double[] { best, bytes };
+  }
+
+  public static void main( String argv[] ) throws Exception {
+    try( DirectoryStream<Path> files = Files.newDirectoryStream( Paths.get( "tests" ), "*.cm" ) ) {
+      for( Path file : files )
+        check( file.toString(), new String( Files.readAllBytes( file ) ) );
+    }
+    for( int seed = 1; seed <= 100; seed++ )
+      check( "generated seed " + seed, LexerSpeed.generated( seed, 20, seed % 2 == 0 ? 0.05 : 0 ) );
+    for( int depth : new int[] { 10, 100, 1000 } )
+      check( "nested " + depth, nested( depth ) );
+    Random random = new Random( 1 );
+    for( int i = 0; i < 5000; i++ )
+      check( "random program " + i, randomProgram( random ) );
+    System.out.println( "DescentParser matches CUP on all " + checked + " programs, " + itself + " of them without CUP's help" );
+
+    Source big = Source.read( new StringReader( LexerSpeed.generated( 1, 10000, 0 ) ) );
+    for( int i = 0; i < 5; i++ ) {
+      speed( big, false );
+      speed( big, true );
+    }
+    double[] cup = speed( big, false ), descent = speed( big, true );
+    System.out.printf( "%-18s %15s %15s %8s %8s %8s%n", "input", "CUP tokens/s", "Descent tokens/s", "speedup", "CUP", "Descent" );
+    System.out.printf( "%-18s %15.0f %15.0f %7.2fx %7.1fB %7.1fB%n", "generated 10000", cup[0], descent[0], descent[0] / cup[0], cup[1], descent[1] );
+    System.out.println( "(the last two columns are bytes allocated per token)" );
+  }
+}
@@ -0,0 +1,56 @@
+/*
+  File Name: FlatAstMemory.java
+  To Build: make bench
+
+  Compares the heap held by the object-per-node absyn tree with the same program
+  converted to a FlatAst. The program is generated to have about 1M nodes (pass a
+  different count as the first argument), run with a large enough -Xmx for both.
+*/
+
+import java.io.StringReader;
+import absyn.*;
+import flat.*;
+
+public class FlatAstMemory {
+
+  // Each statement "x = (a + b) * c - 3;" is 12 nodes: assign, 2 op, 4 var, 4 simple var, int
+  static String program( int nodes ) {
+    int statements = nodes / 12;
+    StringBuilder src = new StringBuilder( statements * 32 );
+    src.append( "int a;\nint b;\nint c;\n" );
+    int perFunction = 1000;
+    for( int f = 0; f * perFunction < statements; f++ ) {
+      src.append( "void f" ).append( f ).append( "(void) {\n  int x;\n" );
+      for( int i = 0; i < perFunction; i++ )
+        src.append( "  x = (a + b) * c - " ).append( i ).append( ";\n" );
+      src.append( "}\n" );
+    }
+    return src.toString();
+  }
+
+  static long used() {
+    Runtime rt = Runtime.getRuntime();
+    for( int i = 0; i < 4; i++ )
+      System.gc();
+    return rt.totalMemory() - rt.freeMemory();
+  }
+
+  public static void main( String argv[] ) throws Exception {
+    int nodes = argv.length > 0 ? Integer.parseInt( argv[0] ) : 1000000;
+    String src = program( nodes );
+
+    long before = used();
+    parser p = new parser( new Lexer( new StringReader( src ) ) );
+    DecList tree = (DecList) p.parse().value;
+    long treeBytes = used() - before;
+
+    FlatAst flatTree = AbsynToFlat.convert( tree, p.names );
+    tree = null;
+    long flatBytes = used() - before;
+
+    int n = flatTree.size();
+    System.out.printf( "%-8s %12s %14s%n", "", "nodes", "bytes/node" );
+    System.out.printf( "%-8s %12d %14.1f%n", "absyn", n, (double) treeBytes / n );
+    System.out.printf( "%-8s %12d %14.1f  (arrays alone: %.1f)%n", "flat", n, (double) flatBytes / n, (double) flatTree.bytes() / n );
+  }
+}
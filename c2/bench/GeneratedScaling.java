@@ -0,0 +1,80 @@
+/*
+  File Name: GeneratedScaling.java
+  To Build: make bench
+
+  Parses and checks ProgramGenerator programs that double in size, once by
+  number of functions and once by how deeply blocks nest, and prints the time
+  per function or per level for each. Linear code keeps that roughly flat;
+  anything quadratic in the parser or the symbol table shows up as a per unit
+  time that keeps growing, and rows where it grew by more than half are marked.
+*/
+
+import java.io.*;
+
+public class GeneratedScaling {
+
+  static PrintStream nowhere = new PrintStream( OutputStream.nullOutputStream() );
+
+  // Parse and check times in nanoseconds, best of a few runs
+  static long[] time( String src ) throws Exception {
+    long[] best = { Long.MAX_VALUE, Long.MAX_VALUE };
+    for( int run = 0; run < 3; run++ ) {
+      Compilation compilation = new Compilation( nowhere );
+      compilation.tableOut = nowhere;
+      long start = System.nanoTime();
+      compilation.parse( new StringReader( src ) );
+      long parsed = System.nanoTime();
+      compilation.check( 0 );
+      long checked = System.nanoTime();
+      compilation.flush();
+      best[0] = Math.min( best[0], parsed - start );
+      best[1] = Math.min( best[1], checked - parsed );
+    }
+    return best;
+  }
+
+  // One row per size, with the parse and check time per unit and whether either grew too much since the last row
+  static void scale( String what, int from, int to, java.util.function.IntFunction<ProgramGenerator.Settings> settings ) throws Exception {
+    System.out.printf( "%10s %12s %14s %14s%n", what, "bytes", "parse ns/unit", "check ns/unit" );
+    double lastParse = 0, lastCheck = 0;
+    for( int n = from; n <= to; n *= 2 ) {
+      String src = ProgramGenerator.generate( settings.apply( n ) );
+      long[] t = time( src );
+      double parse = (double) t[0] / n, check = (double) t[1] / n;
+      boolean grew = lastParse > 0 && ( parse > 1.5 * lastParse || check > 1.5 * lastCheck );
+      System.out.printf( "%10d %12d %14.0f %14.0f %s%n", n, src.length(), parse, check, grew ? "  <- grew" : "" );
+      lastParse = parse;
+      lastCheck = check;
+    }
+  }
+
+  public static void main( String argv[] ) throws Exception {
+    // Warm up on a mid sized program
+    ProgramGenerator.Settings warm = new ProgramGenerator.Settings();
+    warm.functions = 500;
+    String warmSrc = ProgramGenerator.generate( warm );
+    for( int i = 0; i < 10; i++ )
+      time( warmSrc );
+
+    scale( "functions", 500, 32000, n -> {
+      ProgramGenerator.Settings settings = new ProgramGenerator.Settings();
+      settings.functions = n;
+      settings.globals = n / 2;
+      settings.depth = 2;
+      settings.statements = 3;
+      return settings;
+    } );
+    System.out.println();
+
+    // Every block holds one nested block and nothing else branches, so the program grows with the depth instead of exponentially
+    scale( "depth", 16, 1024, n -> {
+      ProgramGenerator.Settings settings = new ProgramGenerator.Settings();
+      settings.functions = 20;
+      settings.depth = n;
+      settings.statements = 1;
+      settings.nest = 1;
+      settings.elses = 0;
+      return settings;
+    } );
+  }
+}
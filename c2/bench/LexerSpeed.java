@@ -0,0 +1,169 @@
+/*
+  File Name: LexerSpeed.java
+  To Build: make bench
+
+  First checks that DirectLexer gives the parser exactly what the JFlex
+  Lexer does, token for token: the same type, offset and value for every
+  token and the same errors, on every file in tests/, on generated
+  programs with and without errors and on small inputs that hit the odd
+  corners of cm.flex (comments holding '*', \r\n, unknown characters), and
+  that the Scanner dump prints the same with either.
+  Stops at the first difference. Then times both on the same input and
+  prints tokens per second, the speedup and the bytes allocated per token
+  after the input is read: for Lexer, for DirectLexer handing the parser
+  Symbols, and for DirectLexer only filling its Tokens buffer (what the
+  Scanner dump reads).
+*/
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java_cup.runtime.Symbol;
+
+public class LexerSpeed {
+
+  static PrintStream nowhere = new PrintStream( OutputStream.nullOutputStream() );
+
+  static String[] EDGES = {
+    "", " ", "x", "/**/", "/* a */b", "/* a * b */ c", "/* never closed", "/*/",
+    "/** doc **/ x", "/* a ** / b */ c", "/***/ y", "x */ y", "/* a\n * b\n */ c", "/* never closed *", "/**", "a /* b */ /* c */ d", "a/b", "a//b",
+    "if ifx if_ iff i int int2 bool boolean else elsewhere return returns void voids while whiles",
+    "true false truex falsey True FALSE tru",
+    "0 0123 99999999999999999999 12ab", "007 99999999999 00", "2147483647 2147483648 002147483647 4294967296", "_ _1 a_b A9",
+    "< <= > >= = == ! != | || & && ~ + - * / ; , ( ) [ ] { }", "!! &| |& =!= <<= >==",
+    "a\r\nb\rc\nd\r\r\ne\n\rf", "/* a\r\nb\rc\n */ x", "\t\tx\t/*\t*/\ty",
+    "a @ b # c $ d ` e", "\u00E9t\u00E9 = 1;", "x = \uD83D\uDE00 + \uD83D\uDE00;", "/* \uD83D\uDE00 */ y",
+    "x \u000B y", "/* \u000C \u0085 \u2028 */ z", "a \u2029 b",
+  };
+
+  // Every token as type@left:right=value (both the offset it starts at), the errors reported, and how it ended
+  static String lex( String src, boolean direct ) throws Exception {
+    Compilation compilation = new Compilation( nowhere );
+    java_cup.runtime.Scanner scanner = direct ? new DirectLexer( new StringReader( src ), compilation ) : new Lexer( new StringReader( src ), compilation );
+    StringBuilder tokens = new StringBuilder();
+    try {
+      for( Symbol s = scanner.next_token(); s != null; s = scanner.next_token() ) {
+        tokens.append( s.sym ).append( '@' ).append( s.left ).append( ':' ).append( s.right );
+        if( s.value != null )
+          tokens.append( '=' ).append( s.value );
+        tokens.append( '\n' );
+      }
+      tokens.append( "end\n" );
+    } catch( Error e ) {
+      tokens.append( "threw " ).append( e.getMessage() ).append( '\n' );
+    }
+    ByteArrayOutputStream errors = new ByteArrayOutputStream();
+    compilation.diagnostics.flush( new PrintStream( errors ) );
+    return tokens + errors.toString() + "---\n" + dump( src, direct );
+  }
+
+  // What the Scanner dump prints, numbers as they're written in the source whichever lexer reads them
+  static String dump( String src, boolean direct ) throws Exception {
+    Compilation compilation = new Compilation( nowhere );
+    Source source = Source.read( new StringReader( src ) );
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PrintStream print = new PrintStream( out );
+    try {
+      if( direct )
+        Scanner.dump( new DirectLexer( source, compilation ), print );
+      else
+        Scanner.dumpJflex( new Lexer( source.reader(), compilation ), source, print );
+    } catch( Error e ) {
+      print.println( "threw " + e.getMessage() );
+    }
+    print.flush();
+    return out.toString();
+  }
+
+  static boolean same( String name, String src ) throws Exception {
+    String expected = lex( src, false ), got = lex( src, true );
+    if( expected.equals( got ) )
+      return true;
+    String[] e = expected.split( "\n" ), g = got.split( "\n" );
+    int i = 0;
+    while( i < e.length && i < g.length && e[i].equals( g[i] ) )
+      i++;
+    System.out.println( "DIFFERENT on " + name + " at token " + i + ": Lexer " +
+                        ( i < e.length ? e[i] : "(nothing)" ) + ", DirectLexer " + ( i < g.length ? g[i] : "(nothing)" ) );
+    return false;
+  }
+
+  static String generated( int seed, int functions, double errors ) {
+    ProgramGenerator.Settings settings = new ProgramGenerator.Settings();
+    settings.seed = seed;
+    settings.functions = functions;
+    settings.globals = functions / 2;
+    settings.errors = errors;
+    return ProgramGenerator.generate( settings );
+  }
+
+  static final int JFLEX = 0, DIRECT = 1, BUFFER = 2;
+
+  // Tokens per second for one way of lexing over all the sources, best of a few runs, and bytes allocated per token
+  static double[] speed( List<String> sources, int how ) throws Exception {
+    double best = 0, bytes = 0;
+    for( int run = 0; run < 5; run++ ) {
+      long tokens = 0, time = 0, allocated = 0;
+      for( String src : sources ) {
+        Compilation compilation = new Compilation( nowhere );
+        java_cup.runtime.Scanner scanner = how == JFLEX ? new Lexer( new StringReader( src ), compilation ) : new DirectLexer( new StringReader( src ), compilation );
+        long start = System.nanoTime(), startBytes = Stats.allocated();
+        if( how == BUFFER ) {
+          DirectLexer lexer = (DirectLexer) scanner;
+          while( lexer.advance() )
+            tokens++;
+        } else {
+          while( scanner.next_token() != null )
+            tokens++;
+        }
+        time += System.nanoTime() - start;
+        allocated += Stats.allocated() - startBytes;
+      }
+      best = Math.max( best, tokens / ( time / 1e9 ) );
+      bytes = (double) allocated / tokens;
+    }
+    return new double[] { best, bytes };
+  }
+
+  public static void main( String argv[] ) throws Exception {
+    List<String> tests = new ArrayList<String>();
+    int checked = 0;
+    boolean ok = true;
+    try( DirectoryStream<Path> files = Files.newDirectoryStream( Paths.get( "tests" ), "*.cm" ) ) {
+      for( Path file : files ) {
+        String src = new String( Files.readAllBytes( file ) );
+        tests.add( src );
+        ok &= same( file.toString(), src );
+        checked++;
+      }
+    }
+    for( int seed = 1; seed <= 50 && ok; seed++ ) {
+      ok &= same( "generated seed " + seed, generated( seed, 20, seed % 2 == 0 ? 0.05 : 0 ) );
+      checked++;
+    }
+    for( int i = 0; i < EDGES.length && ok; i++ ) {
+      ok &= same( "edge case " + i, EDGES[i] );
+      checked++;
+    }
+    if( !ok )
+      System.exit( 1 );
+    System.out.println( "DirectLexer matches Lexer on all " + checked + " inputs" );
+
+    List<String> big = List.of( generated( 1, 10000, 0 ) );
+    for( int i = 0; i < 5; i++ )
+      for( int how = JFLEX; how <= BUFFER; how++ ) {
+        speed( tests, how );
+        speed( big, how );
+      }
+    System.out.printf( "%-18s %15s %15s %8s %15s %8s %8s %8s%n", "input", "Lexer tokens/s", "Direct tokens/s", "speedup",
+                       "Buffer tokens/s", "Lexer", "Direct", "Buffer" );
+    for( Object[] row : new Object[][] { { "tests/*.cm", tests }, { "generated 10000", big } } ) {
+      @SuppressWarnings( "unchecked" )
+      List<String> sources = (List<String>) row[1];
+      double[] jflex = speed( sources, JFLEX ), direct = speed( sources, DIRECT ), buffer = speed( sources, BUFFER );
+      System.out.printf( "%-18s %15.0f %15.0f %7.2fx %15.0f %7.1fB %7.1fB %7.1fB%n", row[0], jflex[0], direct[0], direct[0] / jflex[0],
+                         buffer[0], jflex[1], direct[1], buffer[1] );
+    }
+    System.out.println( "(the last three columns are bytes allocated per token)" );
+  }
+}
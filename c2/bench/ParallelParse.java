@@ -0,0 +1,121 @@
+/*
+  File Name: ParallelParse.java
+  To Build: make bench
+
+  Checks ParallelParser (-P) against parsing the whole file in one go with
+  -r: the ShowTreeVisitor listing, the symbol table listing and the errors
+  must be the same, so positions are checked as lines and columns too. Runs
+  on every file in tests/ and on generated programs with and without
+  errors, with the smallest piece made one character so even small files
+  are cut at every declaration they have. Stops at the first difference.
+  Then times parsing alone, lexing included, on generated programs of a
+  few sizes: in one go, and in pieces on 1 thread up to one per core.
+  Prints MB/s and the speedup over one go. With a single core this only
+  shows what cutting and putting back together costs.
+*/
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+public class ParallelParse {
+
+  // The tree listing, symbol table listing and errors of one compile
+  static String compile( String src, int threads ) throws Exception {
+    ByteArrayOutputStream tree = new ByteArrayOutputStream(), table = new ByteArrayOutputStream(), errors = new ByteArrayOutputStream();
+    Compilation compilation = new Compilation( new PrintStream( errors ) );
+    compilation.treeOut = new PrintStream( tree );
+    compilation.tableOut = new PrintStream( table );
+    compilation.descentParser = true;
+    compilation.parseThreads = threads;
+    String ended = "";
+    try {
+      if( compilation.parse( Source.read( new StringReader( src ) ) ) != null ) {
+        compilation.printTree();
+        compilation.check( 0 );
+      }
+    } catch( Diagnostics.LimitReached | Diagnostics.Fatal e ) {
+      ended = e.getClass().getSimpleName();
+    } catch( Exception | Error e ) {
+      ended = "threw " + e;
+    }
+    compilation.flush();
+    return tree + "\n---\n" + table + "\n---\n" + errors + "\n---\n" + ended;
+  }
+
+  static int checked = 0, cut = 0;
+
+  static void check( String name, String src ) throws Exception {
+    String expected = compile( src, 0 ), got = compile( src, 3 );
+    if( !expected.equals( got ) ) {
+      String[] e = expected.split( "\n" ), g = got.split( "\n" );
+      int i = 0;
+      while( i < e.length && i < g.length && e[i].equals( g[i] ) )
+        i++;
+      System.out.println( "DIFFERENT on " + name + " at line " + ( i + 1 ) + ": in one go " + ( i < e.length ? e[i] : "(nothing)" ) +
+                          ", in pieces " + ( i < g.length ? g[i] : "(nothing)" ) );
+      System.exit( 1 );
+    }
+    checked++;
+    Compilation compilation = new Compilation( new PrintStream( OutputStream.nullOutputStream() ) );
+    if( new ParallelParser( Source.read( new StringReader( src ) ), compilation, 3 ).parse() != null )
+      cut++;
+  }
+
+  // Parse time in nanoseconds, best of a few runs: in one go with threads 0, otherwise in pieces
+  static long time( Source source, int threads ) throws Exception {
+    long best = Long.MAX_VALUE;
+    for( int run = 0; run < 5; run++ ) {
+      Compilation compilation = new Compilation( new PrintStream( OutputStream.nullOutputStream() ) );
+      compilation.descentParser = true;
+      compilation.parseThreads = threads;
+      long start = System.nanoTime();
+      compilation.parse( source );
+      best = Math.min( best, System.nanoTime() - start );
+    }
+    return best;
+  }
+
+  public static void main( String argv[] ) throws Exception {
+    ParallelParser.pieceSize = 1;
+    try( DirectoryStream<Path> files = Files.newDirectoryStream( Paths.get( "tests" ), "*.cm" ) ) {
+      for( Path file : files )
+        check( file.toString(), new String( Files.readAllBytes( file ) ) );
+    }
+    for( int seed = 1; seed <= 100; seed++ )
+      check( "generated seed " + seed, LexerSpeed.generated( seed, 20 + seed, seed % 2 == 0 ? 0.05 : 0 ) );
+    check( "comment at the end", LexerSpeed.generated( 1, 50, 0 ) + "\n/* the end { */\n" );
+    check( "comment never closed", LexerSpeed.generated( 2, 50, 0 ) + "\n/* the end" );
+    check( "brace never closed", LexerSpeed.generated( 3, 50, 0 ) + "\nint f(void) {\n" );
+    System.out.println( "ParallelParser matches parsing in one go on all " + checked + " programs, " + cut + " of them cut in pieces" );
+    ParallelParser.pieceSize = 64 * 1024;
+
+    int cores = Runtime.getRuntime().availableProcessors();
+    List<Integer> threads = new ArrayList<Integer>();
+    for( int t = 1; t < cores; t *= 2 )
+      threads.add( t );
+    threads.add( cores );
+
+    System.out.printf( "%-18s %8s %12s", "input", "MB", "one go MB/s" );
+    for( int t : threads )
+      System.out.printf( " %16s", t + " thread MB/s" );
+    System.out.println();
+    for( int functions : new int[] { 2000, 10000 } ) {
+      Source source = Source.read( new StringReader( LexerSpeed.generated( 1, functions, 0 ) ) );
+      for( int i = 0; i < 3; i++ ) {
+        time( source, 0 );
+        for( int t : threads )
+          time( source, t );
+      }
+      double mb = source.length() / 1e6;
+      long serial = time( source, 0 );
+      System.out.printf( "%-18s %8.1f %12.1f", "generated " + functions, mb, mb / ( serial / 1e9 ) );
+      for( int t : threads ) {
+        long pieces = time( source, t );
+        System.out.printf( " %16s", String.format( "%.1f %.2fx", mb / ( pieces / 1e9 ), (double) serial / pieces ) );
+      }
+      System.out.println();
+    }
+    System.out.println( "(" + cores + " cores, each column in pieces shows MB/s and the speedup over one go)" );
+  }
+}
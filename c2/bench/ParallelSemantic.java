@@ -0,0 +1,79 @@
+/*
+  File Name: ParallelSemantic.java
+  To Build: make bench
+
+  Times semantic analysis of a generated module with thousands of functions,
+  checked in order and with SemanticAnalyzer.checkParallel on 1 up to one
+  thread per core. Also checks that every run prints exactly the same symbol
+  table and errors as checking in order.
+*/
+
+import absyn.*;
+import java.io.*;
+
+public class ParallelSemantic {
+
+  // n functions, each with a global before it, a prototype of the next function and a call to it
+  // (an error until that function is defined), plus a few blocks and loops in every body
+  static String module( int n ) {
+    StringBuilder src = new StringBuilder( n * 300 );
+    for( int i = 0; i < n; i++ ) {
+      src.append( "int g" ).append( i ).append( ";\n" );
+      src.append( "int f" ).append( i + 1 ).append( "(int x);\n" );
+      src.append( "int f" ).append( i ).append( "(int a) {\n" );
+      src.append( "  int i; int s; bool b;\n" );
+      src.append( "  i = 0; s = g" ).append( i ).append( ";\n" );
+      src.append( "  while (i < a) {\n" );
+      src.append( "    int t;\n" );
+      src.append( "    t = s * 2 + i;\n" );
+      src.append( "    if (t > 100) { s = t / 3; } else { s = s + f" ).append( i + 1 ).append( "(t); }\n" );
+      src.append( "    i = i + 1;\n" );
+      src.append( "  }\n" );
+      src.append( "  b = s == undeclared" ).append( i % 10 ).append( ";\n" );
+      src.append( "  return s;\n" );
+      src.append( "}\n" );
+    }
+    return src.toString();
+  }
+
+  // Runs the analyzer on a fresh tree (types and bindings are kept on the nodes), threads = 0 checks in order
+  static long time( String src, int threads, ByteArrayOutputStream sym, ByteArrayOutputStream errors ) throws Exception {
+    Compilation compilation = new Compilation( new PrintStream( errors ) );
+    compilation.tableOut = new PrintStream( sym );
+    compilation.parse( new StringReader( src ) );
+
+    long start = System.nanoTime();
+    compilation.check( threads );
+    compilation.flush();
+    compilation.tableOut.flush();
+    return System.nanoTime() - start;
+  }
+
+  public static void main( String argv[] ) throws Exception {
+    int n = argv.length > 0 ? Integer.parseInt( argv[0] ) : 5000;
+    int cores = Runtime.getRuntime().availableProcessors();
+    String src = module( n );
+
+    // Warm up both paths
+    for( int i = 0; i < 10; i++ ) {
+      time( src, 0, new ByteArrayOutputStream(), new ByteArrayOutputStream() );
+      time( src, cores, new ByteArrayOutputStream(), new ByteArrayOutputStream() );
+    }
+
+    ByteArrayOutputStream sym = new ByteArrayOutputStream();
+    ByteArrayOutputStream errors = new ByteArrayOutputStream();
+    long inOrder = time( src, 0, sym, errors );
+
+    System.out.printf( "%d functions, %d cores%n", n, cores );
+    System.out.printf( "%10s %12s %10s %10s%n", "threads", "ms", "speedup", "output" );
+    System.out.printf( "%10s %12.1f %10s %10s%n", "in order", inOrder / 1e6, "1.00", "" );
+    for( int threads = 1; threads <= cores; threads *= 2 ) {
+      ByteArrayOutputStream psym = new ByteArrayOutputStream();
+      ByteArrayOutputStream perrors = new ByteArrayOutputStream();
+      long t = time( src, threads, psym, perrors );
+      boolean same = java.util.Arrays.equals( sym.toByteArray(), psym.toByteArray() )
+                  && java.util.Arrays.equals( errors.toByteArray(), perrors.toByteArray() );
+      System.out.printf( "%10d %12.1f %10.2f %10s%n", threads, t / 1e6, (double) inOrder / t, same ? "same" : "DIFFERENT" );
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+  File Name: ParseScaling.java
+  To Build: make bench
+
+  Times the parser on generated programs of growing size (1k up to 1M
+  declarations). Each step is 10x bigger than the last, so if list building
+  is linear the time per declaration should stay roughly flat across rows.
+*/
+
+import java.io.StringReader;
+
+public class ParseScaling {
+
+  // Top level: n global variables followed by one function holding n statements and n call arguments
+  static String globals( int n ) {
+    StringBuilder src = new StringBuilder( n * 12 );
+    for( int i = 0; i < n; i++ )
+      src.append( "int g" ).append( i ).append( ";\n" );
+    return src.toString();
+  }
+
+  static String body( int n ) {
+    StringBuilder src = new StringBuilder( n * 24 );
+    src.append( "void f(int a) {\n" );
+    for( int i = 0; i < n; i++ )
+      src.append( "  int l" ).append( i ).append( ";\n" );
+    for( int i = 0; i < n; i++ )
+      src.append( "  l" ).append( i ).append( " = " ).append( i ).append( ";\n" );
+    src.append( "  f(" );
+    for( int i = 0; i < n; i++ )
+      src.append( i == 0 ? "" : ", " ).append( i );
+    src.append( ");\n}\n" );
+    return src.toString();
+  }
+
+  static long time( String src ) throws Exception {
+    long start = System.nanoTime();
+    parser p = new parser( new Lexer( new StringReader( src ) ) );
+    p.parse();
+    return System.nanoTime() - start;
+  }
+
+  public static void main( String argv[] ) throws Exception {
+    int max = argv.length > 0 ? Integer.parseInt( argv[0] ) : 1000000;
+
+    // Warm up the lexer and parser so the first row isn't mostly JIT time
+    for( int i = 0; i < 5; i++ ) {
+      time( globals( 10000 ) );
+      time( body( 10000 ) );
+    }
+
+    System.out.printf( "%10s %14s %14s %14s %14s%n", "n", "globals ms", "ns/decl", "body ms", "ns/stmt" );
+    for( int n = 1000; n <= max; n *= 10 ) {
+      long g = time( globals( n ) );
+      long b = time( body( n ) );
+      System.out.printf( "%10d %14.1f %14.1f %14.1f %14.1f%n", n, g / 1e6, (double) g / n, b / 1e6, (double) b / (3L * n) );
+    }
+  }
+}
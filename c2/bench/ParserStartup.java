@@ -0,0 +1,128 @@
+/*
+  File Name: ParserStartup.java
+  To Build: make bench
+
+  Time to the first parse in a fresh JVM, what every short compile pays
+  before it does any real work, with the parser's tables as CUP writes
+  them and as ParserTables repacks them. Runs CUP on cm.cup into a
+  temporary directory and compiles its parser.java twice, as it is and
+  after ParserTables, then starts one JVM per run with either in front of
+  the class path. Each JVM times initializing the parser class (where the
+  tables are unpacked) and parsing tests/fac.cm after it, and sends back a
+  checksum of the tables so both ways are known to give the same ones.
+  Prints the median of each time and of the whole process.
+*/
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.nio.file.*;
+import java.util.*;
+import javax.tools.ToolProvider;
+
+public class ParserStartup {
+
+  static final String[] TABLES = { "_production_table", "_action_table", "_reduce_table" };
+  static final int RUNS = 21;
+
+  // In the child JVM: parser class init and first parse in nanoseconds, and the tables' checksum
+  static void child( String file ) throws Exception {
+    long start = System.nanoTime();
+    Class<?> parserClass = Class.forName( "parser" );
+    long initialized = System.nanoTime();
+    Compilation compilation = new Compilation( new PrintStream( OutputStream.nullOutputStream() ) );
+    compilation.parse( Source.open( file ) );
+    long parsed = System.nanoTime();
+
+    long sum = 0;
+    for( String name : TABLES ) {
+      Field field = parserClass.getDeclaredField( name );
+      field.setAccessible( true );
+      for( short[] row : (short[][]) field.get( null ) ) {
+        sum = sum * 31 + row.length;
+        for( short value : row )
+          sum = sum * 31 + value;
+      }
+    }
+    System.out.println( ( initialized - start ) + " " + ( parsed - initialized ) + " " + sum );
+  }
+
+  static void run( String... command ) throws Exception {
+    Process process = new ProcessBuilder( command ).redirectErrorStream( true ).start();
+    String output = new String( process.getInputStream().readAllBytes() );
+    if( process.waitFor() != 0 )
+      throw new IOException( String.join( " ", command ) + " failed:\n" + output );
+  }
+
+  static void compile( Path source, Path classes ) throws Exception {
+    Files.createDirectories( classes );
+    ByteArrayOutputStream errors = new ByteArrayOutputStream();
+    int status = ToolProvider.getSystemJavaCompiler().run( null, null, errors, "-nowarn", "-cp", System.getProperty( "java.class.path" ),
+                                                           "-d", classes.toString(), source.toString() );
+    if( status != 0 )
+      throw new IOException( "javac " + source + " failed:\n" + errors );
+  }
+
+  static long median( List<Long> times ) {
+    List<Long> sorted = new ArrayList<Long>( times );
+    Collections.sort( sorted );
+    return sorted.get( sorted.size() / 2 );
+  }
+
+  public static void main( String argv[] ) throws Exception {
+    if( argv.length == 2 && argv[0].equals( "-child" ) ) {
+      child( argv[1] );
+      return;
+    }
+
+    String java = Paths.get( System.getProperty( "java.home" ), "bin", "java" ).toString();
+    String classPath = System.getProperty( "java.class.path" );
+    Path dir = Files.createTempDirectory( "cm-startup" );
+    try {
+      Path cup = dir.resolve( "cup" ), packed = dir.resolve( "packed" );
+      Files.createDirectories( cup );
+      Files.createDirectories( packed );
+      run( java, "-cp", classPath, "java_cup.Main", "-destdir", cup.toString(), "-expect", "3", "cm.cup" );
+      Files.copy( cup.resolve( "parser.java" ), packed.resolve( "parser.java" ) );
+      ParserTables.main( new String[] { packed.resolve( "parser.java" ).toString() } );
+      compile( cup.resolve( "parser.java" ), cup.resolve( "classes" ) );
+      compile( packed.resolve( "parser.java" ), packed.resolve( "classes" ) );
+
+      String[] names = { "CUP strings", "ParserTables" };
+      Path[] classes = { cup.resolve( "classes" ), packed.resolve( "classes" ) };
+      List<List<Long>> init = new ArrayList<List<Long>>(), parse = new ArrayList<List<Long>>(), process = new ArrayList<List<Long>>();
+      String[] sums = new String[2];
+      for( int how = 0; how < 2; how++ ) {
+        init.add( new ArrayList<Long>() );
+        parse.add( new ArrayList<Long>() );
+        process.add( new ArrayList<Long>() );
+      }
+      for( int run = 0; run < RUNS; run++ )
+        for( int how = 0; how < 2; how++ ) {
+          long start = System.nanoTime();
+          Process child = new ProcessBuilder( java, "-cp", classes[how] + File.pathSeparator + classPath,
+                                              "ParserStartup", "-child", "tests/fac.cm" ).redirectErrorStream( true ).start();
+          String[] out = new String( child.getInputStream().readAllBytes() ).trim().split( " " );
+          if( child.waitFor() != 0 || out.length != 3 )
+            throw new IOException( "child failed: " + String.join( " ", out ) );
+          process.get( how ).add( System.nanoTime() - start );
+          init.get( how ).add( Long.parseLong( out[0] ) );
+          parse.get( how ).add( Long.parseLong( out[1] ) );
+          if( sums[how] != null && !sums[how].equals( out[2] ) )
+            throw new IOException( "tables changed between runs" );
+          sums[how] = out[2];
+        }
+      if( !sums[0].equals( sums[1] ) ) {
+        System.out.println( "DIFFERENT tables from ParserTables" );
+        System.exit( 1 );
+      }
+
+      System.out.println( "Both parsers have the same tables, median of " + RUNS + " JVMs each:" );
+      System.out.printf( "%-14s %14s %14s %14s%n", "tables", "parser init ms", "first parse ms", "process ms" );
+      for( int how = 0; how < 2; how++ )
+        System.out.printf( "%-14s %14.2f %14.2f %14.1f%n", names[how], median( init.get( how ) ) / 1e6,
+                           median( parse.get( how ) ) / 1e6, median( process.get( how ) ) / 1e6 );
+    } finally {
+      Files.walk( dir ).sorted( Comparator.reverseOrder() ).forEach( path -> path.toFile().delete() );
+    }
+  }
+}
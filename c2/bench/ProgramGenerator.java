@@ -0,0 +1,347 @@
+/*
+  File Name: ProgramGenerator.java
+  To Build: make bench
+  To Run:
+    java ProgramGenerator [-seed N] [-functions N] [-globals N] [-depth N] [-statements N] [-nest P] [-else P]
+                          [-expdepth N] [-args N] [-arrays P] [-calls none|chain|tree|random|recursive]
+                          [-errors P] [-o file.cm]
+
+  Writes a random C- program that follows cm.cup and, with -errors 0 (the
+  default), has no syntax or semantic errors. The same seed and settings
+  always give the same program. Tunable:
+    functions   how many functions, plus a main at the end
+    globals     how many global variables, spread in between the functions
+    depth       how deeply blocks nest inside a function body
+    statements  statements in each block
+    nest        chance a statement is an if, while or block of its own while
+                depth allows (0 to 1)
+    else        chance an if has an else (0 to 1)
+    expdepth    how deeply expressions nest
+    args        most parameters a function takes
+    arrays      chance a variable is an array (0 to 1)
+    calls       which functions each one calls: none, the one before it (chain),
+                its parent in a binary tree (tree), any earlier one (random), or
+                any earlier one and itself (recursive)
+    errors      chance each statement gets one mistake instead (0 to 1): an
+                undeclared name, a type mismatch, a missing ';' or ')', or a
+                stray character
+  Used by the benchmarks to get inputs of any size and shape (see
+  GeneratedScaling), and can be used by hand to make stress test files.
+*/
+
+import java.io.*;
+import java.util.*;
+
+public class ProgramGenerator {
+
+  public static class Settings {
+    public long seed = 1;
+    public int functions = 20;
+    public int globals = 10;
+    public int depth = 3;
+    public int statements = 4;
+    public double nest = 0.5;
+    public double elses = 0.5;
+    public int expDepth = 3;
+    public int args = 3;
+    public double arrays = 0.2;
+    public String calls = "random";
+    public double errors = 0;
+  }
+
+  // A variable in scope: its name, whether it's bool, and whether it's an array
+  private static class Var {
+    final String name;
+    final boolean bool;
+    final boolean array;
+
+    Var( String name, boolean bool, boolean array ) {
+      this.name = name;
+      this.bool = bool;
+      this.array = array;
+    }
+  }
+
+  // A function that can be called: its result (null for void) and its parameters
+  private static class Fun {
+    final String name;
+    final Boolean bool;
+    final List<Var> params = new ArrayList<Var>();
+
+    Fun( String name, Boolean bool ) {
+      this.name = name;
+      this.bool = bool;
+    }
+  }
+
+  // <=, >=, != and ~ parse, but SemanticAnalyzer doesn't accept them yet so they're left out
+  private static final String[] COMPARE = { " < ", " > ", " == " };
+  private static final String[] ARITHMETIC = { " + ", " - ", " * ", " / " };
+
+  private final Settings settings;
+  private final Random random;
+  private final StringBuilder src = new StringBuilder();
+  private final List<Fun> functions = new ArrayList<Fun>();
+  private final ArrayList<Var> scope = new ArrayList<Var>(); // Every visible variable, innermost last
+  private Fun current; // The function being written, null in main
+  private int names = 0;
+
+  private ProgramGenerator( Settings settings ) {
+    this.settings = settings;
+    this.random = new Random( settings.seed );
+  }
+
+  public static String generate( Settings settings ) {
+    ProgramGenerator generator = new ProgramGenerator( settings );
+    generator.program();
+    return generator.src.toString();
+  }
+
+  // The program as a whole: globals spread between the functions, then main
+  private void program() {
+    int globalsLeft = settings.globals;
+    for( int f = 0; f < settings.functions; f++ ) {
+      int here = globalsLeft / ( settings.functions - f + 1 );
+      for( int g = 0; g < here; g++, globalsLeft-- )
+        global();
+      function( f );
+    }
+    while( globalsLeft-- > 0 )
+      global();
+    current = null;
+    src.append( "void main(void) {\n" );
+    block( 1, settings.depth );
+    src.append( "}\n" );
+  }
+
+  private void global() {
+    Var var = new Var( "g" + names++, random.nextInt( 3 ) == 0, chance( settings.arrays ) );
+    declare( var, 0 );
+    scope.add( var );
+  }
+
+  private void declare( Var var, int indent ) {
+    src.append( "  ".repeat( Math.min( indent, 16 ) ) ).append( var.bool ? "bool " : "int " ).append( var.name );
+    if( var.array )
+      src.append( '[' ).append( 1 + random.nextInt( 100 ) ).append( ']' );
+    src.append( ";\n" );
+  }
+
+  private void function( int index ) {
+    int r = random.nextInt( 4 );
+    Fun fun = new Fun( "f" + index, r == 0 ? null : r == 1 );
+    int params = random.nextInt( settings.args + 1 );
+    for( int p = 0; p < params; p++ )
+      fun.params.add( new Var( "p" + names++, random.nextInt( 3 ) == 0, chance( settings.arrays ) ) );
+
+    src.append( fun.bool == null ? "void " : fun.bool ? "bool " : "int " ).append( fun.name ).append( '(' );
+    if( params == 0 )
+      src.append( "void" );
+    for( int p = 0; p < params; p++ ) {
+      Var param = fun.params.get( p );
+      src.append( p == 0 ? "" : ", " ).append( param.bool ? "bool " : "int " ).append( param.name ).append( param.array ? "[]" : "" );
+    }
+    src.append( ") {\n" );
+
+    current = fun;
+    if( settings.calls.equals( "recursive" ) )
+      functions.add( fun );
+    int mark = scope.size();
+    scope.addAll( fun.params );
+    block( 1, settings.depth );
+    if( fun.bool != null )
+      src.append( "  return " ).append( exp( fun.bool, settings.expDepth ) ).append( ";\n" );
+    scope.subList( mark, scope.size() ).clear();
+    src.append( "}\n" );
+    if( !settings.calls.equals( "recursive" ) )
+      functions.add( fun );
+  }
+
+  // The inside of a block: a few local declarations then the statements, with blocks nested up to depth more levels
+  private void block( int indent, int depth ) {
+    int mark = scope.size();
+    int locals = random.nextInt( 3 );
+    for( int l = 0; l < locals; l++ ) {
+      Var var = new Var( "v" + names++, random.nextInt( 3 ) == 0, chance( settings.arrays / 2 ) );
+      declare( var, indent );
+      scope.add( var );
+    }
+    for( int s = 0; s < settings.statements; s++ )
+      statement( indent, depth );
+    scope.subList( mark, scope.size() ).clear();
+  }
+
+  private void statement( int indent, int depth ) {
+    String pad = "  ".repeat( Math.min( indent, 16 ) ); // Deep nesting would make the file mostly spaces
+    if( chance( settings.errors ) ) {
+      src.append( pad ).append( mistake() ).append( '\n' );
+      return;
+    }
+
+    int kind = depth > 0 && chance( settings.nest ) ? 3 + random.nextInt( 3 ) : random.nextInt( 3 );
+    if( kind == 0 || kind == 1 ) {
+      Var var = pick( null, false );
+      if( var != null ) {
+        src.append( pad ).append( use( var, settings.expDepth ) ).append( " = " ).append( exp( var.bool, settings.expDepth ) ).append( ";\n" );
+        return;
+      }
+      kind = 2;
+    }
+    if( kind == 2 ) {
+      Fun fun = callable( null );
+      if( fun != null && fun.bool == null )
+        src.append( pad ).append( call( fun, settings.expDepth ) ).append( ";\n" );
+      else
+        src.append( pad ).append( exp( false, settings.expDepth ) ).append( ";\n" );
+    } else if( kind == 3 ) {
+      src.append( pad ).append( "if (" ).append( exp( true, settings.expDepth ) ).append( ") {\n" );
+      block( indent + 1, depth - 1 );
+      if( chance( settings.elses ) ) {
+        src.append( pad ).append( "} else {\n" );
+        block( indent + 1, depth - 1 );
+      }
+      src.append( pad ).append( "}\n" );
+    } else if( kind == 4 ) {
+      src.append( pad ).append( "while (" ).append( exp( true, settings.expDepth ) ).append( ") {\n" );
+      block( indent + 1, depth - 1 );
+      src.append( pad ).append( "}\n" );
+    } else {
+      src.append( pad ).append( "{\n" );
+      block( indent + 1, depth - 1 );
+      src.append( pad ).append( "}\n" );
+    }
+  }
+
+  // One statement with a single error in it
+  private String mistake() {
+    switch( random.nextInt( 5 ) ) {
+      case 0:
+        return "undeclared" + names++ + " = " + exp( false, 1 ) + ";";
+      case 1: {
+        Var var = pick( false, false );
+        return ( var != null ? use( var, 1 ) : "undeclared" + names++ ) + " = " + exp( true, 1 ) + ";";
+      }
+      case 2:
+        return "if (" + exp( true, 1 ) + " { " + exp( false, 1 ) + "; }";
+      case 3:
+        return exp( false, 1 ) + " $ " + exp( false, 1 ) + ";";
+      default:
+        return exp( false, 1 ); // The next statement runs into it
+    }
+  }
+
+  // An expression of the given type, nested up to depth more levels
+  private String exp( boolean bool, int depth ) {
+    int kind = random.nextInt( depth > 0 ? 6 : 2 );
+    if( kind == 0 )
+      return bool ? ( random.nextBoolean() ? "true" : "false" ) : String.valueOf( random.nextInt( 1000 ) );
+    if( kind == 1 ) {
+      Var var = pick( bool, false );
+      if( var != null )
+        return use( var, depth );
+      return bool ? "true" : String.valueOf( random.nextInt( 1000 ) );
+    }
+    if( kind == 2 ) {
+      Fun fun = callable( bool );
+      if( fun != null )
+        return call( fun, depth - 1 );
+    }
+    if( kind == 3 )
+      return "(" + exp( bool, depth - 1 ) + ")";
+    if( bool && random.nextInt( 3 ) == 0 )
+      return operand( true, depth ) + ( random.nextBoolean() ? " && " : " || " ) + operand( true, depth );
+    String[] ops = bool ? COMPARE : ARITHMETIC;
+    return operand( false, depth ) + ops[random.nextInt( ops.length )] + operand( false, depth );
+  }
+
+  // cm.cup gives comparisons higher precedence than + and makes && and || nonassociative,
+  // so an operand that is itself an operation goes in parentheses
+  private String operand( boolean bool, int depth ) {
+    String operand = exp( bool, depth - 1 );
+    return operand.contains( " " ) ? "(" + operand + ")" : operand;
+  }
+
+  // A scalar use of the variable, an element if it's an array. Indexes are kept shallow, they nest into each other
+  private String use( Var var, int depth ) {
+    if( !var.array )
+      return var.name;
+    return var.name + "[" + ( depth > 0 ? exp( false, Math.min( depth - 1, 1 ) ) : String.valueOf( random.nextInt( 100 ) ) ) + "]";
+  }
+
+  private String call( Fun fun, int depth ) {
+    StringBuilder call = new StringBuilder( fun.name ).append( '(' );
+    for( int p = 0; p < fun.params.size(); p++ ) {
+      Var param = fun.params.get( p );
+      call.append( p == 0 ? "" : ", " );
+      Var array = param.array ? pick( param.bool, true ) : null;
+      if( param.array && array == null )
+        return exp( fun.bool != null && fun.bool, 0 ); // Nothing to pass, use something else
+      call.append( param.array ? array.name : exp( param.bool, Math.max( depth, 0 ) ) );
+    }
+    return call.append( ')' ).toString();
+  }
+
+  // A visible variable of the given type (null for either), arrays only if asked for, null if there is none
+  private Var pick( Boolean bool, boolean array ) {
+    int start = random.nextInt( scope.size() + 1 );
+    for( int i = 0; i < scope.size(); i++ ) {
+      Var var = scope.get( ( start + i ) % scope.size() );
+      if( ( bool == null || var.bool == bool ) && ( !array || var.array ) )
+        return var;
+    }
+    return null;
+  }
+
+  // A function this one may call with the given result (null for void), following the call graph shape
+  private Fun callable( Boolean bool ) {
+    int n = functions.size();
+    if( n == 0 || settings.calls.equals( "none" ) )
+      return null;
+    Fun fun;
+    if( current == null || settings.calls.equals( "random" ) || settings.calls.equals( "recursive" ) )
+      fun = functions.get( random.nextInt( n ) );
+    else if( settings.calls.equals( "chain" ) )
+      fun = functions.get( n - 1 );
+    else
+      fun = functions.get( ( n - 1 ) / 2 );
+    return Objects.equals( fun.bool, bool ) ? fun : null;
+  }
+
+  private boolean chance( double p ) {
+    return p > 0 && random.nextDouble() < p;
+  }
+
+  public static void main( String argv[] ) throws IOException {
+    Settings settings = new Settings();
+    String out = null;
+    for( int i = 0; i + 1 < argv.length; i += 2 ) {
+      String value = argv[i + 1];
+      switch( argv[i] ) {
+        case "-seed": settings.seed = Long.parseLong( value ); break;
+        case "-functions": settings.functions = Integer.parseInt( value ); break;
+        case "-globals": settings.globals = Integer.parseInt( value ); break;
+        case "-depth": settings.depth = Integer.parseInt( value ); break;
+        case "-statements": settings.statements = Integer.parseInt( value ); break;
+        case "-nest": settings.nest = Double.parseDouble( value ); break;
+        case "-else": settings.elses = Double.parseDouble( value ); break;
+        case "-expdepth": settings.expDepth = Integer.parseInt( value ); break;
+        case "-args": settings.args = Integer.parseInt( value ); break;
+        case "-arrays": settings.arrays = Double.parseDouble( value ); break;
+        case "-calls": settings.calls = value; break;
+        case "-errors": settings.errors = Double.parseDouble( value ); break;
+        case "-o": out = value; break;
+        default:
+          System.err.println( "Unknown option " + argv[i] );
+          System.exit( 1 );
+      }
+    }
+    String program = generate( settings );
+    if( out == null ) {
+      System.out.print( program );
+    } else {
+      try( Writer writer = new FileWriter( out ) ) {
+        writer.write( program );
+      }
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+  File Name: ScopeDepth.java
+  To Build: make bench
+
+  Symbol table lookups from inside blocks nested 10 to 10000 deep, for globals declared at
+  the bottom of the scope stack. Compares SymbolTable against the stack of hash maps the
+  SemanticAnalyzer used before, which has to check every open scope on the way down.
+  (Timing the whole analyzer doesn't work here, printing the indented table grows with
+  the square of the depth and drowns out the lookups.)
+*/
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Stack;
+
+public class ScopeDepth {
+
+  static final int LOOKUPS = 1000000;
+  static final int GLOBALS = 64;
+
+  static long stackOfMaps( int depth ) {
+    Stack<HashMap<Integer, ArrayList<NodeType>>> tableStack = new Stack<HashMap<Integer, ArrayList<NodeType>>>();
+    tableStack.push( new HashMap<Integer, ArrayList<NodeType>>() );
+    for( int g = 0; g < GLOBALS; g++ ) {
+      ArrayList<NodeType> list = new ArrayList<NodeType>();
+      list.add( new NodeType( 0, null, null ) );
+      tableStack.peek().put( g, list );
+    }
+    for( int d = 0; d < depth; d++ ) {
+      tableStack.push( new HashMap<Integer, ArrayList<NodeType>>() );
+      ArrayList<NodeType> list = new ArrayList<NodeType>();
+      list.add( new NodeType( d, null, null ) );
+      tableStack.peek().put( GLOBALS + d, list );
+    }
+
+    long start = System.nanoTime();
+    int found = 0;
+    for( int i = 0; i < LOOKUPS; i++ ) {
+      int key = i % GLOBALS;
+      for( int s = tableStack.size() - 1; s >= 0; s-- ) {
+        if( tableStack.get( s ).get( key ) != null ) {
+          found++;
+          break;
+        }
+      }
+    }
+    long t = System.nanoTime() - start;
+    if( found != LOOKUPS ) throw new IllegalStateException();
+    return t;
+  }
+
+  static long symbolTable( int depth ) {
+    SymbolTable symbols = new SymbolTable( GLOBALS + depth );
+    for( int g = 0; g < GLOBALS; g++ )
+      symbols.insert( g, new NodeType( 0, null, null ) );
+    for( int d = 0; d < depth; d++ ) {
+      symbols.enterScope();
+      symbols.insert( GLOBALS + d, new NodeType( d, null, null ) );
+    }
+
+    long start = System.nanoTime();
+    int found = 0;
+    for( int i = 0; i < LOOKUPS; i++ ) {
+      if( symbols.lookup( i % GLOBALS ) != null )
+        found++;
+    }
+    long t = System.nanoTime() - start;
+    if( found != LOOKUPS ) throw new IllegalStateException();
+    return t;
+  }
+
+  public static void main( String argv[] ) {
+    // Warm up both so the first rows aren't mostly JIT time
+    for( int i = 0; i < 5; i++ ) {
+      stackOfMaps( 10 );
+      symbolTable( 10 );
+    }
+
+    System.out.printf( "%10s %20s %20s%n", "depth", "stack ns/lookup", "table ns/lookup" );
+    for( int depth : new int[] { 10, 100, 1000, 10000 } ) {
+      long stack = stackOfMaps( depth );
+      long table = symbolTable( depth );
+      System.out.printf( "%10d %20.1f %20.1f%n", depth, (double) stack / LOOKUPS, (double) table / LOOKUPS );
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+  File Name: SourceInput.java
+  To Build: make bench
+
+  Lexes multi-megabyte generated programs from files on disk three ways:
+    reader   BufferedReader over FileReader into the JFlex Lexer (how Main opened files before Source)
+    chars    the same Reader into DirectLexer, which copies it into a char[] first
+    mapped   Source.open, which maps an ASCII file, into DirectLexer reading the bytes in place
+  and prints megabytes per second and bytes allocated per byte of source for
+  each. Also checks that every way gives the same tokens, including for a file
+  with non-ASCII text in a comment, which Source decodes instead of mapping.
+*/
+
+import java.io.*;
+import java.nio.file.*;
+
+public class SourceInput {
+
+  static PrintStream nowhere = new PrintStream( OutputStream.nullOutputStream() );
+
+  static final int READER = 0, CHARS = 1, MAPPED = 2;
+  static final String[] NAMES = { "reader", "chars", "mapped" };
+
+  // Lexes the file one way and returns a checksum of the token kinds and offsets
+  static long lex( String file, int how ) throws Exception {
+    Compilation compilation = new Compilation( nowhere );
+    long sum = 0;
+    if( how == READER ) {
+      Lexer lexer = new Lexer( new BufferedReader( new FileReader( file ) ), compilation );
+      for( java_cup.runtime.Symbol s = lexer.next_token(); s != null; s = lexer.next_token() )
+        sum = sum * 31 + s.sym * 7 + s.left;
+      return sum;
+    }
+    DirectLexer lexer = how == CHARS ? new DirectLexer( new BufferedReader( new FileReader( file ) ), compilation )
+                                     : new DirectLexer( Source.open( file ), compilation );
+    Tokens tokens = lexer.tokens;
+    for( int i = 0; lexer.advance(); i++ )
+      sum = sum * 31 + tokens.kind( i ) * 7 + tokens.offset( i );
+    return sum;
+  }
+
+  public static void main( String argv[] ) throws Exception {
+    Path dir = Files.createTempDirectory( "cm-source" );
+    try {
+      Path odd = dir.resolve( "odd.cm" );
+      Files.write( odd, "/* caf\u00e9 */ int main(void) { return 0; }\n".getBytes( "UTF-8" ) );
+      if( lex( odd.toString(), READER ) != lex( odd.toString(), MAPPED ) ) {
+        System.out.println( "DIFFERENT tokens for a non-ASCII file" );
+        System.exit( 1 );
+      }
+
+      System.out.printf( "%10s %8s %10s %10s%n", "MB", "input", "MB/s", "alloc B/B" );
+      for( int functions : new int[] { 2000, 8000 } ) {
+        ProgramGenerator.Settings settings = new ProgramGenerator.Settings();
+        settings.functions = functions;
+        settings.globals = functions / 2;
+        Path file = dir.resolve( "gen" + functions + ".cm" );
+        Files.write( file, ProgramGenerator.generate( settings ).getBytes( "US-ASCII" ) );
+        double mb = Files.size( file ) / 1e6;
+
+        long expected = lex( file.toString(), READER );
+        for( int how = READER; how <= MAPPED; how++ ) {
+          if( lex( file.toString(), how ) != expected ) {
+            System.out.println( "DIFFERENT tokens from " + NAMES[how] );
+            System.exit( 1 );
+          }
+          long best = Long.MAX_VALUE, allocated = 0;
+          for( int run = 0; run < 8; run++ ) {
+            long bytes = Stats.allocated(), start = System.nanoTime();
+            lex( file.toString(), how );
+            best = Math.min( best, System.nanoTime() - start );
+            allocated = Stats.allocated() - bytes;
+          }
+          System.out.printf( "%10.1f %8s %10.1f %10.2f%n", mb, NAMES[how], mb / ( best / 1e9 ), allocated / ( mb * 1e6 ) );
+        }
+      }
+    } finally {
+      try( DirectoryStream<Path> files = Files.newDirectoryStream( dir ) ) {
+        for( Path file : files )
+          Files.delete( file );
+      }
+      Files.delete( dir );
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package flat;
+
+import absyn.*;
+
+/* Copies an absyn tree into a FlatAst. Each visit leaves the index of the node it made in
+   'last', so parents convert their children first and then build themselves from them. */
+public class AbsynToFlat implements AbsynVisitor {
+
+  private FlatAstBuilder builder;
+  private int last = FlatAst.NONE;
+
+  private AbsynToFlat( FlatAstBuilder builder ) {
+    this.builder = builder;
+  }
+
+  public static FlatAst convert( DecList program, NameTable names ) {
+    AbsynToFlat converter = new AbsynToFlat( new FlatAstBuilder( names ) );
+    return converter.builder.build( converter.convert( (Absyn) program ) );
+  }
+
+  private int convert( Absyn tree ) {
+    if( tree == null )
+      return FlatAst.NONE;
+    tree.accept( this, 0 );
+    return last;
+  }
+
+  public void visit( ExpList expList, int level ) {
+    int list = builder.expList();
+    for( int i = 0; i < expList.size(); i++ )
+      builder.add( list, convert( expList.get( i ) ) );
+    last = list;
+  }
+
+  public void visit( VarDecList varDecList, int level ) {
+    int list = builder.varDecList();
+    for( int i = 0; i < varDecList.size(); i++ )
+      builder.add( list, convert( varDecList.get( i ) ) );
+    last = list;
+  }
+
+  public void visit( DecList decList, int level ) {
+    int list = builder.decList();
+    for( int i = 0; i < decList.size(); i++ )
+      builder.add( list, convert( decList.get( i ) ) );
+    last = list;
+  }
+
+  public void visit( AssignExp exp, int level ) {
+    int lhs = convert( exp.lhs );
+    int rhs = convert( exp.rhs );
+    last = builder.assignExp( exp.pos, lhs, rhs );
+  }
+
+  public void visit( IfExp exp, int level ) {
+    int test = convert( exp.test );
+    int thenpart = convert( exp.thenpart );
+    int elsepart = convert( exp.elsepart );
+    last = builder.ifExp( exp.pos, test, thenpart, elsepart );
+  }
+
+  public void visit( IntExp exp, int level ) {
+    last = builder.intExp( exp.pos, exp.value );
+  }
+
+  public void visit( OpExp exp, int level ) {
+    int left = convert( exp.left );
+    int right = convert( exp.right );
+    last = builder.opExp( exp.pos, left, exp.op, right );
+  }
+
+  public void visit( WhileExp exp, int level ) {
+    int test = convert( exp.test );
+    int body = convert( exp.body );
+    last = builder.whileExp( exp.pos, test, body );
+  }
+
+  public void visit( VarExp exp, int level ) {
+    last = builder.varExp( exp.pos, convert( exp.variable ) );
+  }
+
+  public void visit( ArrayDec dec, int level ) {
+    last = builder.arrayDec( dec.pos, convert( dec.typ ), dec.nameId, dec.size );
+  }
+
+  public void visit( BoolExp exp, int level ) {
+    last = builder.boolExp( exp.pos, exp.value );
+  }
+
+  public void visit( CallExp exp, int level ) {
+    last = builder.callExp( exp.pos, exp.funId, convert( exp.args ) );
+  }
+
+  public void visit( CompoundExp exp, int level ) {
+    int decs = convert( exp.decs );
+    int exps = convert( exp.exps );
+    last = builder.compoundExp( exp.pos, decs, exps );
+  }
+
+  public void visit( FunctionDec dec, int level ) {
+    int result = convert( dec.result );
+    int params = convert( dec.parameters );
+    int body = convert( dec.body );
+    last = builder.functionDec( dec.pos, result, dec.funcId, params, body );
+  }
+
+  public void visit( IndexVar var, int level ) {
+    last = builder.indexVar( var.pos, var.nameId, convert( var.index ) );
+  }
+
+  public void visit( NameTy type, int level ) {
+    last = builder.nameTy( type.pos, type.typeVal );
+  }
+
+  public void visit( NilExp exp, int level ) {
+    last = builder.nilExp( exp.pos );
+  }
+
+  public void visit( ReturnExp exp, int level ) {
+    last = builder.returnExp( exp.pos, convert( exp.exp ) );
+  }
+
+  public void visit( SimpleDec dec, int level ) {
+    last = builder.simpleDec( dec.pos, convert( dec.typ ), dec.nameId );
+  }
+
+  public void visit( SimpleVar var, int level ) {
+    last = builder.simpleVar( var.pos, var.nameId );
+  }
+}
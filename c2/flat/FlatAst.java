@@ -0,0 +1,146 @@
+package flat;
+
+import absyn.NameTable;
+
+/* A whole abstract syntax tree stored as parallel arrays instead of one object per node.
+
+   Every node is an index into the arrays below. Which fields a node uses depends on its kind:
+
+   kind            first         second        third       value
+   -------------   -----------   -----------   ---------   ---------------
+   INT_EXP                                                 the integer
+   BOOL_EXP                                                1 = true, 0 = false
+   NIL_EXP
+   VAR_EXP         var
+   OP_EXP          left          right                     OpExp operator
+   ASSIGN_EXP      lhs           rhs
+   IF_EXP          test          then part     else part
+   WHILE_EXP       test          body
+   CALL_EXP        args list                               name
+   RETURN_EXP      exp
+   COMPOUND_EXP    decs list     exps list
+   SIMPLE_VAR                                              name
+   INDEX_VAR       index                                   name
+   SIMPLE_DEC      type                                    name
+   ARRAY_DEC       type          size                      name
+   FUNCTION_DEC    result type   params list   body        name
+   NAME_TY                                                 NameTy type value
+   *_LIST          first item    last item                 item count
+
+   Items of a list are chained through next(), a missing child is NONE and names are
+   NameTable ids. */
+public class FlatAst {
+
+  public final static int NONE = -1;
+
+  public final static int INT_EXP      = 0;
+  public final static int BOOL_EXP     = 1;
+  public final static int NIL_EXP      = 2;
+  public final static int VAR_EXP      = 3;
+  public final static int OP_EXP       = 4;
+  public final static int ASSIGN_EXP   = 5;
+  public final static int IF_EXP       = 6;
+  public final static int WHILE_EXP    = 7;
+  public final static int CALL_EXP     = 8;
+  public final static int RETURN_EXP   = 9;
+  public final static int COMPOUND_EXP = 10;
+  public final static int SIMPLE_VAR   = 11;
+  public final static int INDEX_VAR    = 12;
+  public final static int SIMPLE_DEC   = 13;
+  public final static int ARRAY_DEC    = 14;
+  public final static int FUNCTION_DEC = 15;
+  public final static int NAME_TY      = 16;
+  public final static int DEC_LIST     = 17;
+  public final static int VAR_DEC_LIST = 18;
+  public final static int EXP_LIST     = 19;
+
+  // Positions are offsets in the source, the same as Absyn.pos
+
+  final byte[] kind;
+  final int[] first, second, third, next, value, pos;
+  final NameTable names;
+  final int size;
+  final int root;
+
+  FlatAst( byte[] kind, int[] first, int[] second, int[] third, int[] next, int[] value, int[] pos,
+           NameTable names, int size, int root ) {
+    this.kind = kind;
+    this.first = first;
+    this.second = second;
+    this.third = third;
+    this.next = next;
+    this.value = value;
+    this.pos = pos;
+    this.names = names;
+    this.size = size;
+    this.root = root;
+  }
+
+  // Number of nodes in the tree
+  public int size() { return size; }
+
+  // The DecList for the whole program
+  public int root() { return root; }
+
+  public int kind( int node ) { return kind[node]; }
+
+  public int first( int node ) { return first[node]; }
+
+  public int second( int node ) { return second[node]; }
+
+  public int third( int node ) { return third[node]; }
+
+  // The item after this one in the list that holds it, NONE at the end
+  public int next( int node ) { return next[node]; }
+
+  public int value( int node ) { return value[node]; }
+
+  public int pos( int node ) { return pos[node]; }
+
+  public String name( int node ) {
+    return names.name( value[node] );
+  }
+
+  public int listSize( int list ) {
+    return list == NONE ? 0 : value[list];
+  }
+
+  // Rough heap footprint of the arrays (the NameTable is shared with the compiler so it isn't counted)
+  public long bytes() {
+    return 6L * 16 + kind.length + 4L * ( first.length + second.length + third.length + next.length + value.length + pos.length );
+  }
+
+  // Calls the visitor method for the node's kind
+  public void accept( int node, FlatVisitor visitor, int level ) {
+    switch( kind[node] ) {
+      case INT_EXP:      visitor.visitIntExp( this, node, level ); break;
+      case BOOL_EXP:     visitor.visitBoolExp( this, node, level ); break;
+      case NIL_EXP:      visitor.visitNilExp( this, node, level ); break;
+      case VAR_EXP:      visitor.visitVarExp( this, node, level ); break;
+      case OP_EXP:       visitor.visitOpExp( this, node, level ); break;
+      case ASSIGN_EXP:   visitor.visitAssignExp( this, node, level ); break;
+      case IF_EXP:       visitor.visitIfExp( this, node, level ); break;
+      case WHILE_EXP:    visitor.visitWhileExp( this, node, level ); break;
+      case CALL_EXP:     visitor.visitCallExp( this, node, level ); break;
+      case RETURN_EXP:   visitor.visitReturnExp( this, node, level ); break;
+      case COMPOUND_EXP: visitor.visitCompoundExp( this, node, level ); break;
+      case SIMPLE_VAR:   visitor.visitSimpleVar( this, node, level ); break;
+      case INDEX_VAR:    visitor.visitIndexVar( this, node, level ); break;
+      case SIMPLE_DEC:   visitor.visitSimpleDec( this, node, level ); break;
+      case ARRAY_DEC:    visitor.visitArrayDec( this, node, level ); break;
+      case FUNCTION_DEC: visitor.visitFunctionDec( this, node, level ); break;
+      case NAME_TY:      visitor.visitNameTy( this, node, level ); break;
+      case DEC_LIST:     visitor.visitDecList( this, node, level ); break;
+      case VAR_DEC_LIST: visitor.visitVarDecList( this, node, level ); break;
+      case EXP_LIST:     visitor.visitExpList( this, node, level ); break;
+    }
+  }
+
+  // Visits every item of a list in order, does nothing for NONE
+  public void acceptAll( int list, FlatVisitor visitor, int level ) {
+    if( list == NONE )
+      return;
+    for( int item = first[list]; item != NONE; item = next[item] )
+      accept( item, visitor, level );
+  }
+}
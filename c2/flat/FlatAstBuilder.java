@@ -0,0 +1,158 @@
+package flat;
+
+import absyn.NameTable;
+import java.util.Arrays;
+
+/* Appends nodes to the arrays of a FlatAst. Each method takes the same arguments as the
+   matching absyn constructor, with child nodes passed as indexes and names only by id, so a
+   grammar action like new OpExp(e1right,e1,OpExp.PLUS,e2) becomes
+   builder.opExp(e1right,e1,OpExp.PLUS,e2).
+   Lists are started empty with one of the *List methods and grown with add. */
+public class FlatAstBuilder {
+
+  private byte[] kind;
+  private int[] first, second, third, next, value, pos;
+  private int size = 0;
+
+  // Names are ids in the same table the lexer interned them into
+  private NameTable names;
+
+  public FlatAstBuilder( NameTable names ) {
+    this( names, 1024 );
+  }
+
+  public FlatAstBuilder( NameTable names, int expectedNodes ) {
+    this.names = names;
+    int n = Math.max( 16, expectedNodes );
+    kind = new byte[n];
+    first = new int[n];
+    second = new int[n];
+    third = new int[n];
+    next = new int[n];
+    value = new int[n];
+    pos = new int[n];
+  }
+
+  private int node( int k, int at, int a, int b, int c, int v ) {
+    if( size == kind.length ) {
+      int n = size * 2;
+      kind = Arrays.copyOf( kind, n );
+      first = Arrays.copyOf( first, n );
+      second = Arrays.copyOf( second, n );
+      third = Arrays.copyOf( third, n );
+      next = Arrays.copyOf( next, n );
+      value = Arrays.copyOf( value, n );
+      pos = Arrays.copyOf( pos, n );
+    }
+    kind[size] = (byte) k;
+    first[size] = a;
+    second[size] = b;
+    third[size] = c;
+    next[size] = FlatAst.NONE;
+    value[size] = v;
+    pos[size] = at;
+    return size++;
+  }
+
+  /* ----------------------------  EXPRESSIONS  ---------------------------- */
+  public int intExp( int pos, int v ) {
+    return node( FlatAst.INT_EXP, pos, FlatAst.NONE, FlatAst.NONE, FlatAst.NONE, v );
+  }
+
+  public int boolExp( int pos, boolean v ) {
+    return node( FlatAst.BOOL_EXP, pos, FlatAst.NONE, FlatAst.NONE, FlatAst.NONE, v ? 1 : 0 );
+  }
+
+  public int nilExp( int pos ) {
+    return node( FlatAst.NIL_EXP, pos, FlatAst.NONE, FlatAst.NONE, FlatAst.NONE, 0 );
+  }
+
+  public int varExp( int pos, int var ) {
+    return node( FlatAst.VAR_EXP, pos, var, FlatAst.NONE, FlatAst.NONE, 0 );
+  }
+
+  public int opExp( int pos, int left, int op, int right ) {
+    return node( FlatAst.OP_EXP, pos, left, right, FlatAst.NONE, op );
+  }
+
+  public int assignExp( int pos, int lhs, int rhs ) {
+    return node( FlatAst.ASSIGN_EXP, pos, lhs, rhs, FlatAst.NONE, 0 );
+  }
+
+  public int ifExp( int pos, int test, int thenpart, int elsepart ) {
+    return node( FlatAst.IF_EXP, pos, test, thenpart, elsepart, 0 );
+  }
+
+  public int whileExp( int pos, int test, int body ) {
+    return node( FlatAst.WHILE_EXP, pos, test, body, FlatAst.NONE, 0 );
+  }
+
+  public int callExp( int pos, int funId, int args ) {
+    return node( FlatAst.CALL_EXP, pos, args, FlatAst.NONE, FlatAst.NONE, funId );
+  }
+
+  public int returnExp( int pos, int exp ) {
+    return node( FlatAst.RETURN_EXP, pos, exp, FlatAst.NONE, FlatAst.NONE, 0 );
+  }
+
+  public int compoundExp( int pos, int decs, int exps ) {
+    return node( FlatAst.COMPOUND_EXP, pos, decs, exps, FlatAst.NONE, 0 );
+  }
+
+  /* ----------------------------  VARIABLES  ------------------------------ */
+  public int simpleVar( int pos, int nameId ) {
+    return node( FlatAst.SIMPLE_VAR, pos, FlatAst.NONE, FlatAst.NONE, FlatAst.NONE, nameId );
+  }
+
+  public int indexVar( int pos, int nameId, int index ) {
+    return node( FlatAst.INDEX_VAR, pos, index, FlatAst.NONE, FlatAst.NONE, nameId );
+  }
+
+  /* ---------------------------  DECLARATIONS  ---------------------------- */
+  public int simpleDec( int pos, int type, int nameId ) {
+    return node( FlatAst.SIMPLE_DEC, pos, type, FlatAst.NONE, FlatAst.NONE, nameId );
+  }
+
+  public int arrayDec( int pos, int type, int nameId, int len ) {
+    return node( FlatAst.ARRAY_DEC, pos, type, len, FlatAst.NONE, nameId );
+  }
+
+  public int functionDec( int pos, int type, int nameId, int params, int body ) {
+    return node( FlatAst.FUNCTION_DEC, pos, type, params, body, nameId );
+  }
+
+  public int nameTy( int pos, int type ) {
+    return node( FlatAst.NAME_TY, pos, FlatAst.NONE, FlatAst.NONE, FlatAst.NONE, type );
+  }
+
+  /* -------------------------------  LISTS  ------------------------------- */
+  public int decList() {
+    return node( FlatAst.DEC_LIST, 0, FlatAst.NONE, FlatAst.NONE, FlatAst.NONE, 0 );
+  }
+
+  public int varDecList() {
+    return node( FlatAst.VAR_DEC_LIST, 0, FlatAst.NONE, FlatAst.NONE, FlatAst.NONE, 0 );
+  }
+
+  public int expList() {
+    return node( FlatAst.EXP_LIST, 0, FlatAst.NONE, FlatAst.NONE, FlatAst.NONE, 0 );
+  }
+
+  // Links an item onto the end of a list in constant time and returns the list
+  public int add( int list, int item ) {
+    if( first[list] == FlatAst.NONE )
+      first[list] = item;
+    else
+      next[second[list]] = item;
+    second[list] = item;
+    value[list]++;
+    return list;
+  }
+
+  // Trims the arrays down to the nodes actually used, the builder shouldn't be used afterwards
+  public FlatAst build( int root ) {
+    return new FlatAst( Arrays.copyOf( kind, size ), Arrays.copyOf( first, size ), Arrays.copyOf( second, size ),
+                        Arrays.copyOf( third, size ), Arrays.copyOf( next, size ), Arrays.copyOf( value, size ),
+                        Arrays.copyOf( pos, size ), names, size, root );
+  }
+}
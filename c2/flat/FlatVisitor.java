@@ -0,0 +1,46 @@
+package flat;
+
+/* Same shape as AbsynVisitor but over node indexes of a FlatAst, use FlatAst.accept to dispatch. */
+public interface FlatVisitor {
+
+  public void visitExpList( FlatAst ast, int node, int level );
+
+  public void visitAssignExp( FlatAst ast, int node, int level );
+
+  public void visitIfExp( FlatAst ast, int node, int level );
+
+  public void visitIntExp( FlatAst ast, int node, int level );
+
+  public void visitOpExp( FlatAst ast, int node, int level );
+
+  public void visitWhileExp( FlatAst ast, int node, int level );
+
+  public void visitVarExp( FlatAst ast, int node, int level );
+
+  public void visitDecList( FlatAst ast, int node, int level );
+
+  public void visitArrayDec( FlatAst ast, int node, int level );
+
+  public void visitBoolExp( FlatAst ast, int node, int level );
+
+  public void visitCallExp( FlatAst ast, int node, int level );
+
+  public void visitCompoundExp( FlatAst ast, int node, int level );
+
+  public void visitFunctionDec( FlatAst ast, int node, int level );
+
+  public void visitIndexVar( FlatAst ast, int node, int level );
+
+  public void visitNameTy( FlatAst ast, int node, int level );
+
+  public void visitNilExp( FlatAst ast, int node, int level );
+
+  public void visitReturnExp( FlatAst ast, int node, int level );
+
+  public void visitSimpleDec( FlatAst ast, int node, int level );
+
+  public void visitSimpleVar( FlatAst ast, int node, int level );
+
+  public void visitVarDecList( FlatAst ast, int node, int level );
+
+}
@@ -0,0 +1,133 @@
+/*
+  File Name: CompilerBenchmark.java
+  To Run: make jmh (see the Makefile for where the JMH jars are expected)
+
+  JMH benchmarks for each stage of the compiler, over two kinds of input:
+    tests            every file in tests/*.cm, one operation compiles them all
+    synthetic-N      a bench/ProgramGenerator program with N functions
+  lex    tokens per second through the JFlex Lexer (the tokens counter)
+  parse  whole inputs per second through the CUP parser into absyn trees
+  check  SemanticAnalyzer on a fresh tree each time (it keeps types and bindings on the nodes)
+  print  ShowTreeVisitor printing the tree to nowhere
+  make jmh runs them with the GC profiler, which adds allocation per operation and allocation rate.
+*/
+
+package jmh;
+
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.*;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class CompilerBenchmark {
+
+  static final Function<Object, Object> LEX = stage( "lex" );
+  static final Function<Object, Object> PARSE = stage( "parse" );
+  static final Function<Object, Object> CHECK = stage( "check" );
+  static final Function<Object, Object> PRINT = stage( "print" );
+  static final Function<Object, Object> GENERATE = stage( "generate" );
+
+  @SuppressWarnings( "unchecked" )
+  static Function<Object, Object> stage( String name ) {
+    try {
+      Map<String, Function<Object, Object>> stages =
+        (Map<String, Function<Object, Object>>) Class.forName( "JmhTargets" ).getMethod( "stages" ).invoke( null );
+      return stages.get( name );
+    } catch( ReflectiveOperationException e ) {
+      throw new IllegalStateException( "JmhTargets isn't on the classpath", e );
+    }
+  }
+
+  @Param( { "tests", "synthetic-1000", "synthetic-10000" } )
+  public String input;
+
+  String[] sources;
+  Object[] parsed; // For print, which doesn't change the tree so it can be reused
+
+  @Setup( Level.Trial )
+  public void load() throws Exception {
+    if( input.equals( "tests" ) ) {
+      try( Stream<Path> files = Files.list( Paths.get( "tests" ) ) ) {
+        List<Path> cm = files.filter( path -> path.toString().endsWith( ".cm" ) ).sorted().collect( Collectors.toList() );
+        sources = new String[cm.size()];
+        for( int i = 0; i < sources.length; i++ )
+          sources[i] = new String( Files.readAllBytes( cm.get( i ) ) );
+      }
+    } else {
+      sources = new String[] { synthetic( Integer.parseInt( input.substring( input.indexOf( '-' ) + 1 ) ) ) };
+    }
+    parsed = parseAll( sources );
+  }
+
+  static Object[] parseAll( String[] sources ) {
+    Object[] trees = new Object[sources.length];
+    for( int i = 0; i < sources.length; i++ )
+      trees[i] = PARSE.apply( sources[i] );
+    return trees;
+  }
+
+  // A ProgramGenerator program with n functions, the same one every time
+  static String synthetic( int n ) {
+    return (String) GENERATE.apply( n );
+  }
+
+  // Reported as tokens per second next to the operations per second
+  @State( Scope.Thread )
+  @AuxCounters( AuxCounters.Type.OPERATIONS )
+  public static class Tokens {
+    public long tokens;
+
+    @Setup( Level.Iteration )
+    public void reset() {
+      tokens = 0;
+    }
+  }
+
+  // A fresh tree for every check
+  @State( Scope.Thread )
+  public static class Fresh {
+    Object[] trees;
+
+    @Setup( Level.Invocation )
+    public void parse( CompilerBenchmark benchmark ) {
+      trees = parseAll( benchmark.sources );
+    }
+  }
+
+  @Benchmark
+  public long lex( Tokens counter ) {
+    long tokens = 0;
+    for( String src : sources )
+      tokens += (Long) LEX.apply( src );
+    counter.tokens += tokens;
+    return tokens;
+  }
+
+  @Benchmark
+  public Object[] parse() {
+    return parseAll( sources );
+  }
+
+  @Benchmark
+  public Object[] check( Fresh fresh ) {
+    for( int i = 0; i < fresh.trees.length; i++ )
+      fresh.trees[i] = CHECK.apply( fresh.trees[i] );
+    return fresh.trees;
+  }
+
+  @Benchmark
+  public Object[] print() {
+    Object[] printed = new Object[parsed.length];
+    for( int i = 0; i < parsed.length; i++ )
+      printed[i] = PRINT.apply( parsed[i] );
+    return printed;
+  }
+}
@@ -0,0 +1,86 @@
+/*
+  File Name: JmhTargets.java
+  To Build: make jmh
+
+  The compiler's classes are in the default package, which JMH benchmarks
+  (they have to be in a package) can't name. This hands each stage to
+  CompilerBenchmark as a plain java.util.function.Function, looked up once
+  by reflection; after that the calls are ordinary interface calls.
+*/
+
+import java.io.*;
+import java.util.*;
+import java.util.function.Function;
+
+public class JmhTargets {
+
+  static final PrintStream NOWHERE = new PrintStream( OutputStream.nullOutputStream() );
+
+  // Source text -> number of tokens, the lexer on its own
+  static Object lex( Object src ) {
+    try {
+      Lexer lexer = new Lexer( new StringReader( (String) src ), new Compilation( NOWHERE ) );
+      long tokens = 0;
+      while( lexer.next_token() != null )
+        tokens++;
+      return tokens;
+    } catch( IOException e ) {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  // Source text -> a Compilation holding the parsed tree. Files the parser gives up on still
+  // count, what it built before stopping is kept
+  static Object parse( Object src ) {
+    Compilation compilation = new Compilation( NOWHERE );
+    compilation.treeOut = NOWHERE;
+    compilation.tableOut = NOWHERE;
+    try {
+      compilation.parse( new StringReader( (String) src ) );
+    } catch( Diagnostics.Fatal e ) {
+    } catch( Exception e ) {
+      throw new RuntimeException( e );
+    }
+    return compilation;
+  }
+
+  // Parsed Compilation -> the same, checked (types and bindings are kept on the tree, so it needs a fresh one)
+  static Object check( Object parsed ) {
+    Compilation compilation = (Compilation) parsed;
+    if( compilation.program != null ) {
+      try {
+        compilation.check( 0 );
+      } catch( Exception e ) {
+        throw new RuntimeException( e );
+      }
+    }
+    compilation.diagnostics.flush( NOWHERE );
+    return compilation;
+  }
+
+  // Parsed Compilation -> the same, after printing its tree
+  static Object print( Object parsed ) {
+    Compilation compilation = (Compilation) parsed;
+    if( compilation.program != null )
+      compilation.printTree();
+    return compilation;
+  }
+
+  // Number of functions -> a ProgramGenerator program that size
+  static Object generate( Object functions ) {
+    ProgramGenerator.Settings settings = new ProgramGenerator.Settings();
+    settings.functions = (Integer) functions;
+    settings.globals = settings.functions / 2;
+    return ProgramGenerator.generate( settings );
+  }
+
+  public static Map<String, Function<Object, Object>> stages() {
+    Map<String, Function<Object, Object>> stages = new HashMap<String, Function<Object, Object>>();
+    stages.put( "lex", JmhTargets::lex );
+    stages.put( "parse", JmhTargets::parse );
+    stages.put( "check", JmhTargets::check );
+    stages.put( "print", JmhTargets::print );
+    stages.put( "generate", JmhTargets::generate );
+    return stages;
+  }
+}